@@ -0,0 +1,137 @@
+package re.legend.crowd_simulator.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.badlogic.gdx.math.Vector2;
+import com.google.common.graph.MutableGraph;
+
+import re.legend.crowd_simulator.entities.bodies.AdultBody;
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.entities.gameobjects.Wall;
+import re.legend.crowd_simulator.map.Map;
+import re.legend.crowd_simulator.map.TmxMapReader;
+import re.legend.crowd_simulator.pathfinding.AStarNode;
+import re.legend.crowd_simulator.pathfinding.Path;
+import re.legend.crowd_simulator.pathfinding.WaypointGraphBuilder;
+
+/**
+ * Map of the simulation built from the layers of a real Tiled map, populated
+ * with bodies, shared by the benchmarks
+ *
+ * The map is read without any graphic context, the same way the headless mode
+ * does. A map without waypoints (map.tmx) gets waypoints at the center of every
+ * other free tile, linked by the {@link WaypointGraphBuilder}. The bodies are
+ * placed at random outside of the walls, each one heading along a planned path
+ * to a random waypoint, and the random generator is seeded so that every run
+ * measures the same crowd.
+ */
+public class MapFixture {
+
+	// Map of the simulation
+	public static final String MAP = "map/map2.tmx";
+
+	// First map of the project, which only has walls
+	public static final String FIRST_MAP = "map/map.tmx";
+
+	// Seed of the random generator
+	private static final long SEED = 42;
+
+	// The map
+	private final Map map;
+
+	// Waypoints of the map
+	private final List<AStarNode> waypoints;
+
+	// Random generator of the positions and targets
+	private final Random random = new Random(SEED);
+
+	/**
+	 * Reads the map and sets it up as the environment does
+	 *
+	 * @param path the path of the .tmx file, on the file system or the classpath
+	 * @throws IOException if the map can't be read
+	 */
+	public MapFixture(String path) throws IOException {
+		TmxMapReader reader = new TmxMapReader(path);
+		this.map = new Map();
+		this.map.setWalls(reader.getWalls());
+		MutableGraph<AStarNode> graph = reader.getWaypoints();
+		if (graph.nodes().isEmpty()) {
+			graph = WaypointGraphBuilder.build(sampleWaypoints());
+		}
+		this.map.setWaypoints(graph);
+		this.map.setShops(reader.getShops());
+		this.map.setExits(reader.getExits());
+		this.waypoints = new ArrayList<>(graph.nodes());
+	}
+
+	private List<Vector2> sampleWaypoints() {
+		List<Vector2> points = new ArrayList<>();
+		for (int y = Wall.SIZE / 2; y < Map.MAP_SIZE; y += 2 * Wall.SIZE) {
+			for (int x = Wall.SIZE / 2; x < Map.MAP_SIZE; x += 2 * Wall.SIZE) {
+				if (!this.map.getWallGrid().isWallAt(x, y)) {
+					points.add(new Vector2(x, y));
+				}
+			}
+		}
+		return points;
+	}
+
+	/**
+	 * Adds bodies at random outside of the walls, each one following a path to a
+	 * random waypoint
+	 *
+	 * @param count the number of bodies to add
+	 * @throws ReflectiveOperationException if a body can't be created
+	 */
+	public void spawnBodies(int count) throws ReflectiveOperationException {
+		for (int i = 0; i < count; i++) {
+			Vector2 position = randomFreePosition();
+			AgentBody body = this.map.createBody(AdultBody.class, null, position.x, position.y);
+			planPath(body);
+		}
+		this.map.updateBodyGrid();
+	}
+
+	/**
+	 * Gives the body a new path, from its position to a random waypoint
+	 *
+	 * @param body the body
+	 */
+	public void planPath(AgentBody body) {
+		body.resetCurrentNode();
+		Path path = this.map.getPathfinder().findPath(body.getPosition(), randomWaypoint());
+		body.setPath(path);
+		body.setTarget(path == null || path.isEmpty() ? randomFreePosition() : path.getNode(0));
+	}
+
+	/**
+	 * @return a random position outside of the walls
+	 */
+	public Vector2 randomFreePosition() {
+		while (true) {
+			float x = this.random.nextFloat() * Map.MAP_SIZE;
+			float y = this.random.nextFloat() * Map.MAP_SIZE;
+			if (!this.map.getWallGrid().isWallAt(x, y)) {
+				return new Vector2(x, y);
+			}
+		}
+	}
+
+	/**
+	 * @return a random waypoint of the map
+	 */
+	public AStarNode randomWaypoint() {
+		return this.waypoints.get(this.random.nextInt(this.waypoints.size()));
+	}
+
+	/**
+	 * @return the map
+	 */
+	public Map getMap() {
+		return this.map;
+	}
+}
@@ -0,0 +1,87 @@
+package re.legend.crowd_simulator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.math.Vector2;
+
+import re.legend.crowd_simulator.pathfinding.AStarNode;
+import re.legend.crowd_simulator.pathfinding.Path;
+import re.legend.crowd_simulator.pathfinding.Pathfinder;
+
+/**
+ * Planning of a path on both maps, over a fixed set of random queries
+ *
+ * {@link #findPath()} plans a path the way an agent does when it moves along a
+ * path (nearest nodes, routing table or A*, then smoothing), and
+ * {@link #searchPath()} runs the bare A* search between two waypoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathfindingBenchmark {
+
+	// Number of queries, played in turn
+	private static final int QUERIES = 1024;
+
+	// Map the paths are planned on
+	@Param({ MapFixture.FIRST_MAP, MapFixture.MAP })
+	public String map;
+
+	// Pathfinder of the map
+	private Pathfinder pathfinder;
+
+	// Start and goal points of the queries
+	private Vector2[] from;
+	private Vector2[] to;
+
+	// Start and goal waypoints of the queries
+	private AStarNode[] start;
+	private AStarNode[] goal;
+
+	// Index of the next query
+	private int query;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		MapFixture fixture = new MapFixture(this.map);
+		this.pathfinder = fixture.getMap().getPathfinder();
+		this.from = new Vector2[QUERIES];
+		this.to = new Vector2[QUERIES];
+		this.start = new AStarNode[QUERIES];
+		this.goal = new AStarNode[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			this.from[i] = fixture.randomFreePosition();
+			this.to[i] = fixture.randomFreePosition();
+			this.start[i] = fixture.randomWaypoint();
+			this.goal[i] = fixture.randomWaypoint();
+		}
+	}
+
+	@Benchmark
+	public Path findPath() {
+		int i = this.query++ & (QUERIES - 1);
+		return this.pathfinder.findPath(this.from[i], this.to[i]);
+	}
+
+	@Benchmark
+	public Path searchPath() {
+		int i = this.query++ & (QUERIES - 1);
+		return this.pathfinder.searchPath(this.start[i], this.goal[i]);
+	}
+}
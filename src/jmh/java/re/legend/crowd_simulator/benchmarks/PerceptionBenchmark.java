@@ -0,0 +1,61 @@
+package re.legend.crowd_simulator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import re.legend.crowd_simulator.simulation.StepEngine;
+
+/**
+ * Perception pass of the environment (body grid rebuild and frustum queries of
+ * every body) as the crowd grows
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerceptionBenchmark {
+
+	// Number of bodies on the map
+	@Param({ "100", "1000", "5000", "20000" })
+	public int bodies;
+
+	// Number of threads of the engine, 0 for one per processor
+	@Param({ "1", "0" })
+	public int threads;
+
+	// Engine running the pass
+	private StepEngine engine;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		MapFixture fixture = new MapFixture(MapFixture.MAP);
+		fixture.spawnBodies(this.bodies);
+		this.engine = this.threads == 0 ? new StepEngine(fixture.getMap())
+				: new StepEngine(fixture.getMap(), this.threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.engine.shutdown();
+	}
+
+	@Benchmark
+	public void computePerceptions() {
+		this.engine.computePerceptions();
+	}
+}
@@ -0,0 +1,134 @@
+package re.legend.crowd_simulator.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * End-to-end scaling benchmark: runs the whole simulation in headless mode with
+ * crowds of increasing sizes, and gathers the reports of the runs in a single
+ * JSON array
+ *
+ * Each size runs in its own JVM, started with the classpath of the harness, so
+ * that the heap, the JIT and the SARL runtime of a run never leak into the next
+ * one. The run is the one of the Launcher, unchanged: the environment, the four
+ * spawners and the adult agents, on map2.tmx by default. The agents are spread
+ * over the four spawners, at a frequency which brings the whole crowd in before
+ * the bomb is triggered at a fixed simulated time, and the run ends once the
+ * mall is empty or when the time limit is reached.
+ *
+ * Usage: ScalingHarness [--sizes 1000,5000,20000,100000] [--bomb-time s]
+ * [--time-limit s] [--output file] [--xmx size] [any option of the headless
+ * mode]
+ */
+public class ScalingHarness {
+
+	// Total numbers of agents of the runs
+	private static final String DEFAULT_SIZES = "1000,5000,20000,100000";
+
+	// Simulated time of the bomb (in seconds)
+	private static final float DEFAULT_BOMB_TIME = 60;
+
+	// Simulated time after which a run is stopped (in seconds)
+	private static final float DEFAULT_TIME_LIMIT = 600;
+
+	// Number of spawners of the environment
+	private static final int SPAWNERS = 4;
+
+	// Fraction of the time before the bomb during which the agents are spawned
+	private static final float SPAWN_WINDOW = 0.8f;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String sizes = DEFAULT_SIZES;
+		float bombTime = DEFAULT_BOMB_TIME;
+		float timeLimit = DEFAULT_TIME_LIMIT;
+		File output = new File("scaling.json");
+		String xmx = null;
+		// Options given as they are to the headless mode
+		List<String> headlessOptions = new ArrayList<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "--sizes":
+				sizes = value;
+				break;
+			case "--bomb-time":
+				bombTime = Float.parseFloat(value);
+				break;
+			case "--time-limit":
+				timeLimit = Float.parseFloat(value);
+				break;
+			case "--output":
+				output = new File(value);
+				break;
+			case "--xmx":
+				xmx = value;
+				break;
+			default:
+				headlessOptions.add(args[i]);
+				headlessOptions.add(value);
+			}
+		}
+
+		List<String> reports = new ArrayList<>();
+		for (String size : sizes.split(",")) {
+			int agents = Integer.parseInt(size.trim());
+			reports.add(run(agents, bombTime, timeLimit, xmx, headlessOptions));
+		}
+
+		String json = "[\n  " + String.join(",\n  ", reports) + "\n]";
+		try (PrintWriter writer = new PrintWriter(output, StandardCharsets.UTF_8.name())) {
+			writer.println(json);
+		}
+		System.out.println(json);
+	}
+
+	/**
+	 * Runs the simulation with the given crowd in a new JVM
+	 *
+	 * @return the report of the run
+	 */
+	private static String run(int agents, float bombTime, float timeLimit, String xmx, List<String> headlessOptions)
+			throws IOException, InterruptedException {
+		int perSpawner = (agents + SPAWNERS - 1) / SPAWNERS;
+		// The delay between two spawns may be a fraction of a millisecond
+		float frequency = bombTime * SPAWN_WINDOW * 1000 / perSpawner;
+		File report = File.createTempFile("crowd-report", ".json");
+		try {
+			List<String> command = new ArrayList<>();
+			command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+			if (xmx != null) {
+				command.add("-Xmx" + xmx);
+			}
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add("re.legend.crowd_simulator.Launcher");
+			command.add("--headless");
+			command.add("--agents");
+			command.add(Integer.toString(perSpawner));
+			command.add("--frequency");
+			command.add(Float.toString(frequency));
+			command.add("--bomb-time");
+			command.add(Float.toString(bombTime));
+			command.add("--time-limit");
+			command.add(Float.toString(timeLimit));
+			command.add("--report");
+			command.add(report.getPath());
+			command.addAll(headlessOptions);
+
+			System.out.println("Running " + SPAWNERS * perSpawner + " agents, one every " + frequency + "ms per spawner");
+			int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+			List<String> lines = Files.readAllLines(report.toPath(), StandardCharsets.UTF_8);
+			if (exitCode != 0 || lines.isEmpty()) {
+				throw new IllegalStateException("The run of " + agents + " agents failed (exit code " + exitCode + ")");
+			}
+			return lines.get(0);
+		} finally {
+			report.delete();
+		}
+	}
+}
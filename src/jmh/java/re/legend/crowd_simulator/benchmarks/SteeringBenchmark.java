@@ -0,0 +1,93 @@
+package re.legend.crowd_simulator.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.simulation.StepEngine;
+
+/**
+ * Steering behaviours of the bodies, each invocation running one behaviour for
+ * every body of the crowd, their perceptions computed once beforehand
+ *
+ * The bodies don't move between two invocations, so every invocation does the
+ * same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SteeringBenchmark {
+
+	// Number of bodies on the map
+	@Param({ "1000", "10000" })
+	public int bodies;
+
+	// Bodies of the crowd, all of them having a path
+	private List<AgentBody> crowd;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		MapFixture fixture = new MapFixture(MapFixture.MAP);
+		fixture.spawnBodies(this.bodies);
+		StepEngine engine = new StepEngine(fixture.getMap());
+		engine.computePerceptions();
+		engine.shutdown();
+		this.crowd = new ArrayList<>();
+		for (AgentBody body : fixture.getMap().getBodies()) {
+			if (body.getPath() != null) {
+				this.crowd.add(body);
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.crowd = null;
+	}
+
+	@Benchmark
+	public void seek() {
+		for (int i = 0; i < this.crowd.size(); i++) {
+			this.crowd.get(i).seek();
+		}
+	}
+
+	@Benchmark
+	public void avoidCollisionWithBodies() {
+		for (int i = 0; i < this.crowd.size(); i++) {
+			this.crowd.get(i).avoidCollisionWithBodies();
+		}
+	}
+
+	@Benchmark
+	public void avoidCollisionWithWalls() {
+		for (int i = 0; i < this.crowd.size(); i++) {
+			this.crowd.get(i).avoidCollisionWithWalls();
+		}
+	}
+
+	@Benchmark
+	public void followPath() {
+		for (int i = 0; i < this.crowd.size(); i++) {
+			this.crowd.get(i).followPath();
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package re.legend.crowd_simulator.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.map.Map;
+import re.legend.crowd_simulator.simulation.SimulationClock;
+import re.legend.crowd_simulator.simulation.StepEngine;
+
+/**
+ * A whole simulation step, in the order the environment runs it on a
+ * SimulationStep: perceptions, the decision of every agent, collection of the
+ * influences, then their resolution and application
+ *
+ * The decision of an agent is the one of an adult moving along its path
+ * (AdultSkill.moveAlongPath), run for every body on the benchmark thread: the
+ * dispatch of the events by the SARL runtime is not measured. A body reaching
+ * the end of its path gets a new one, so the crowd keeps moving from one
+ * invocation to the next.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StepBenchmark {
+
+	// Number of bodies on the map
+	@Param({ "1000", "5000", "20000" })
+	public int bodies;
+
+	// Fixture the crowd comes from
+	private MapFixture fixture;
+
+	// Engine running the passes of the environment
+	private StepEngine engine;
+
+	// Bodies of the crowd
+	private List<AgentBody> crowd;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.fixture = new MapFixture(MapFixture.MAP);
+		this.fixture.spawnBodies(this.bodies);
+		Map map = this.fixture.getMap();
+		this.engine = new StepEngine(map);
+		this.crowd = new ArrayList<>(map.getBodies());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.engine.shutdown();
+	}
+
+	@Benchmark
+	public void step() {
+		float dt = SimulationClock.DEFAULT_STEP_DURATION;
+		this.engine.computePerceptions();
+		for (int i = 0; i < this.crowd.size(); i++) {
+			moveAlongPath(this.crowd.get(i), dt);
+		}
+		this.engine.collectInfluences();
+		this.engine.applyInfluences();
+	}
+
+	private void moveAlongPath(AgentBody body, float dt) {
+		boolean hasPath = body.getPath() != null && !body.getPath().isEmpty();
+		if (hasPath ? body.hasReachedPathLastNode() : body.hasReachedTarget()) {
+			this.fixture.planPath(body);
+			hasPath = body.getPath() != null && !body.getPath().isEmpty();
+		}
+		if (hasPath) {
+			body.followPath();
+		}
+		body.seek();
+		body.avoidCollisionWithBodies();
+		body.avoidCollisionWithWalls();
+		body.computesVelocity();
+		body.addMotionInfluence(body.getLinearVelocity().x * dt, body.getLinearVelocity().y * dt);
+	}
+}
@@ -8,9 +8,13 @@ import com.badlogic.gdx.math.Vector2;
 
 import re.legend.crowd_simulator.entities.SimulationEntity;
 import re.legend.crowd_simulator.entities.gameobjects.Shop;
+import re.legend.crowd_simulator.entities.gameobjects.Wall;
 import re.legend.crowd_simulator.frustum.EntityFrustum;
 import re.legend.crowd_simulator.influence.Influence;
+import re.legend.crowd_simulator.influence.InfluenceLatch;
 import re.legend.crowd_simulator.influence.MotionInfluence;
+import re.legend.crowd_simulator.influence.MotionSlot;
+import re.legend.crowd_simulator.map.WallDistanceField;
 import re.legend.crowd_simulator.pathfinding.Path;
 
 public abstract class AgentBody extends SimulationEntity {
@@ -18,6 +22,9 @@ public abstract class AgentBody extends SimulationEntity {
 	// Body agent's ID
 	private UUID agentId;
 
+	// Slot of the body in the map's body store, -1 if it is not on the map
+	private int slot;
+
 	// Manage the linear and angular speed
 	private Vector2 linearVelocity;
 	private float angularVelocity;
@@ -31,6 +38,10 @@ public abstract class AgentBody extends SimulationEntity {
 	// Max distance at which the agent can perceive other bodies
 	public static final float PERCEPTION_DISTANCE = 10;
 
+	// Radius of the footprint of the body, the environment keeps two bodies at
+	// least twice this distance apart
+	public static final float RADIUS = 3f;
+
 	// Distance from the target at which the agent should start slowing down
 	public static final float SLOW_DOWN_DISTANCE = 15f;
 
@@ -66,14 +77,19 @@ public abstract class AgentBody extends SimulationEntity {
 	// Body's perception frustum
 	private EntityFrustum frustum;
 
-	// Other bodies perceived by this body
-	private List<AgentBody> perceivedBodies;
+	// Distance field of the walls of the map the body is on
+	private WallDistanceField wallDistanceField;
 
-	// Objects perceived by this body
-	private List<SimulationEntity> perceivedObjects;
+	// Other bodies perceived by this body, refilled by the environment at each
+	// step
+	private final List<AgentBody> perceivedBodies;
 
-	// Body's influences
-	private List<Influence> influences;
+	// Motion submitted by the body for the next step
+	private final MotionSlot motionSlot = new MotionSlot();
+
+	// Counts the answers of the bodies to the perceptions of a step, null until
+	// the body is on a map
+	private InfluenceLatch influenceLatch;
 
 	private Vector2 ahead;
 	private Vector2 ahead2;
@@ -91,12 +107,13 @@ public abstract class AgentBody extends SimulationEntity {
 	// The shop entrance that the agent is targetting
 	private Vector2 shopEntrance;
 
-	// Time at which the agent has acquired its target while shopping, used for
-	// random moves in the shops
-	public long shopTargetAcquiredTime;
+	// Simulated time (in seconds) at which the agent has acquired its target while
+	// shopping, used for random moves in the shops
+	public float shopTargetAcquiredTime;
 
-	// Time at which the agent has started shopping and has entered a shop
-	public long shoppingStartedTime;
+	// Simulated time (in seconds) at which the agent has started shopping and has
+	// entered a shop
+	public float shoppingStartedTime;
 
 	// Nearest exit to the agent
 	public Vector2 nearestExit;
@@ -107,13 +124,14 @@ public abstract class AgentBody extends SimulationEntity {
 	public AgentBody(float x, float y, float orientation, UUID id) {
 		super(x, y, orientation);
 		this.agentId = id;
-		this.influences = new ArrayList<>();
+		this.slot = -1;
 		this.linearVelocity = new Vector2();
 		this.perceivedBodies = new ArrayList<>();
-		this.perceivedObjects = new ArrayList<>();
 		this.ahead = new Vector2();
 		this.ahead2 = new Vector2();
 		this.avoidance = new Vector2();
+		this.desiredVelocity = new Vector2();
+		this.steering = new Vector2();
 	}
 
 	/**
@@ -131,79 +149,97 @@ public abstract class AgentBody extends SimulationEntity {
 	}
 
 	/**
-	 * @return the perception frustum of the body
+	 * @return the slot of the body in the map's body store, -1 if it is not on
+	 *         the map
 	 */
-	public EntityFrustum getFrustum() {
-		return this.frustum;
+	public int getSlot() {
+		return this.slot;
 	}
 
 	/**
-	 * Sets which objects and which bodies are perceived by this body
-	 * 
-	 * @param bodies  the other bodies perceived by the body
-	 * @param objects the objects perceived by the body
+	 * @param slot the slot of the body in the map's body store
 	 */
-	public void setPerceptions(List<AgentBody> bodies, List<SimulationEntity> objects) {
-		synchronized (this.perceivedBodies) {
-			this.perceivedBodies = bodies;
-		}
-		synchronized (this.perceivedObjects) {
-			this.perceivedObjects = objects;
-		}
+	public void setSlot(int slot) {
+		this.slot = slot;
 	}
 
 	/**
-	 * @return the objects perceived by the body
+	 * @param wallDistanceField the distance field of the walls of the map the body
+	 *                          is on
 	 */
-	public List<SimulationEntity> getPerceivedObjects() {
-		return this.perceivedObjects;
+	public void setWallDistanceField(WallDistanceField wallDistanceField) {
+		this.wallDistanceField = wallDistanceField;
+	}
+
+	/**
+	 * @param influenceLatch the latch counting the answers of the bodies of the
+	 *                       map the body is on
+	 */
+	public void setInfluenceLatch(InfluenceLatch influenceLatch) {
+		this.influenceLatch = influenceLatch;
+	}
+
+	/**
+	 * @return the motion submitted by the body for the next step
+	 */
+	public MotionSlot getMotionSlot() {
+		return this.motionSlot;
+	}
+
+	/**
+	 * @return the perception frustum of the body
+	 */
+	public EntityFrustum getFrustum() {
+		return this.frustum;
 	}
 
 	/**
-	 * @return the bodies perceived by this body
+	 * @return the bodies perceived by this body, the same list at every step,
+	 *         refilled by the environment while holding its lock
 	 */
 	public List<AgentBody> getPerceivedBodies() {
 		return this.perceivedBodies;
 	}
 
 	/**
-	 * @param influence the influence to add to the body
+	 * @param influence the influence to add to the body, its values are copied
 	 */
 	public void addInfluence(Influence influence) {
-		synchronized (this.influences) {
-			this.influences.add(influence);
+		if (!(influence instanceof MotionInfluence)) {
+			throw new IllegalArgumentException("Unsupported influence: " + influence.getClass().getName());
 		}
+		Vector2 motion = ((MotionInfluence) influence).getLinearMotion();
+		addMotionInfluence(motion.x, motion.y);
 	}
 
 	/**
-	 * @return all the influences of the body
+	 * Submits a linear motion, added without any lock to the motion pending for
+	 * the next step
+	 * 
+	 * @param x the motion on the x axis
+	 * @param y the motion on the y axis
 	 */
-	public List<Influence> getInfluences() {
-		return this.influences;
+	public void addMotionInfluence(float x, float y) {
+		this.motionSlot.add(x, y);
 	}
 
 	/**
-	 * @return all the motion influences of the body
+	 * Tells the environment that the agent has handled the perception of a step
+	 * and submitted its motion, if it moves
+	 *
+	 * @param step the number of the step of the perception
 	 */
-	public List<MotionInfluence> getMotionInfluences() {
-		List<MotionInfluence> motionInfluences = new ArrayList<>();
-		if (this.influences != null && !this.influences.isEmpty()) {
-			synchronized (this.influences) {
-				for (Influence influence : this.influences) {
-					if (influence instanceof MotionInfluence) {
-						motionInfluences.add((MotionInfluence) influence);
-					}
-				}
-			}
+	public void answerPerception(int step) {
+		if (this.influenceLatch != null) {
+			this.influenceLatch.answer(this.motionSlot, step);
 		}
-		return motionInfluences;
 	}
 
 	/**
-	 * Clear the list of influences
+	 * @return true if the body has influences waiting to be computed
 	 */
-	public void clearInfluences() {
-		this.influences.clear();
+	public boolean hasInfluences() {
+		return this.motionSlot.isPending();
 	}
 
 	/**
@@ -263,7 +299,8 @@ public abstract class AgentBody extends SimulationEntity {
 	}
 
 	/**
-	 * @param path the path the agent must follow
+	 * @param path the path the agent must follow, already post-processed by the
+	 *             pathfinder
 	 */
 	public void setPath(Path path) {
 		this.path = path;
@@ -292,17 +329,17 @@ public abstract class AgentBody extends SimulationEntity {
 		this.shopEntrance = shopEntrance;
 	}
 
-	public long getShoppingStartedTime() {
+	public float getShoppingStartedTime() {
 		return shoppingStartedTime;
 	}
 
-	public void setShoppingStartedTime(long shoppingStartedTime) {
+	public void setShoppingStartedTime(float shoppingStartedTime) {
 		this.shoppingStartedTime = shoppingStartedTime;
 	}
 
 	public void seek() {
 		// Computes the desired velocity towards the target
-		this.desiredVelocity = this.target.cpy().sub(this.position);
+		this.desiredVelocity.set(this.target).sub(this.position);
 
 		// Gets the distance to the target
 		float distance = this.desiredVelocity.len();
@@ -318,14 +355,22 @@ public abstract class AgentBody extends SimulationEntity {
 		}
 
 		// Computes the steering force
-		this.steering = this.desiredVelocity.cpy().sub(this.linearVelocity);
+		this.steering.set(this.desiredVelocity).sub(this.linearVelocity);
 		// TODO Make the force depends on the mass (sex dependent ?)
 	}
 
+	/**
+	 * Computes the ahead vectors, at PERCEPTION_DISTANCE and half of it in the
+	 * direction of the velocity
+	 */
+	private void computeAheadVectors() {
+		this.ahead.set(this.linearVelocity).nor().scl(PERCEPTION_DISTANCE).add(this.position);
+		this.ahead2.set(this.linearVelocity).nor().scl(PERCEPTION_DISTANCE * 0.5f).add(this.position);
+	}
+
 	public void avoidCollisionWithBodies() {
 		// The ahead vector is the velocity vector with the PERCEPTION_DISTANCE length
-		this.ahead = this.position.cpy().add(this.linearVelocity.cpy().nor().scl(PERCEPTION_DISTANCE));
-		this.ahead2 = this.position.cpy().add(this.linearVelocity.cpy().nor().scl(PERCEPTION_DISTANCE * 0.5f));
+		computeAheadVectors();
 
 		// Find the most threatening body's position
 		Vector2 bodyToAvoidPosition = findMostThreateningBodyPosition();
@@ -334,7 +379,7 @@ public abstract class AgentBody extends SimulationEntity {
 		// threatening body found
 		// If no body was found, the avoidance force is null
 		if (bodyToAvoidPosition != null) {
-			this.avoidance = this.ahead.cpy().sub(bodyToAvoidPosition).nor().scl(MAX_FORCE);
+			this.avoidance.set(this.ahead).sub(bodyToAvoidPosition).nor().scl(MAX_FORCE);
 		} else {
 			this.avoidance.scl(0);
 		}
@@ -346,8 +391,7 @@ public abstract class AgentBody extends SimulationEntity {
 	// Avoid collision with Walls
 	public void avoidCollisionWithWalls() {
 		// The ahead vector is the velocity vector with the PERCEPTION_DISTANCE length
-		this.ahead = this.position.cpy().add(this.linearVelocity.cpy().nor().scl(PERCEPTION_DISTANCE));
-		this.ahead2 = this.position.cpy().add(this.linearVelocity.cpy().nor().scl(PERCEPTION_DISTANCE * 0.5f));
+		computeAheadVectors();
 
 		// Find the most threatening wall position
 		Vector2 wallToAvoidPosition = findMostThreateningWall();
@@ -356,7 +400,7 @@ public abstract class AgentBody extends SimulationEntity {
 		// found
 		// If no wall was found, the avoidance force is null
 		if (wallToAvoidPosition != null) {
-			this.avoidance = this.ahead.cpy().sub(wallToAvoidPosition).nor().scl(MAX_FORCE * 3);// More force so the
+			this.avoidance.set(this.ahead).sub(wallToAvoidPosition).nor().scl(MAX_FORCE * 3);// More force so the
 																								// ahead vector is not
 																								// stuck in the wall
 		} else {
@@ -383,44 +427,13 @@ public abstract class AgentBody extends SimulationEntity {
 		return false;
 	}
 
-	private boolean lineIntersectsWallCircle(Vector2 wall) {
-		if (Vector2.dst(wall.x + 4, wall.y + 4, this.ahead.x, this.ahead.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 8, wall.y + 4, this.ahead.x, this.ahead.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 12, wall.y + 4, this.ahead.x, this.ahead.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 4, wall.y + 8, this.ahead.x, this.ahead.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 8, wall.y + 8, this.ahead.x, this.ahead.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 12, wall.y + 8, this.ahead.x, this.ahead.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 4, wall.y + 11, this.ahead.x, this.ahead.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 8, wall.y + 11, this.ahead.x, this.ahead.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 12, wall.y + 11, this.ahead.x, this.ahead.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-
-				|| Vector2.dst(wall.x + 4, wall.y + 4, this.ahead2.x, this.ahead2.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 8, wall.y + 4, this.ahead2.x, this.ahead2.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 12, wall.y + 4, this.ahead2.x,
-						this.ahead2.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 4, wall.y + 8, this.ahead2.x, this.ahead2.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 8, wall.y + 8, this.ahead2.x, this.ahead2.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 12, wall.y + 8, this.ahead2.x,
-						this.ahead2.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 4, wall.y + 11, this.ahead2.x,
-						this.ahead2.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 8, wall.y + 11, this.ahead2.x,
-						this.ahead2.y) <= WALL_AHEAD_INTERSECTION_DISTANCE
-				|| Vector2.dst(wall.x + 12, wall.y + 11, this.ahead2.x,
-						this.ahead2.y) <= WALL_AHEAD_INTERSECTION_DISTANCE)
-
-		{
-			return true;
-		}
-		return false;
-	}
-
 	private Vector2 findMostThreateningBodyPosition() {
 		Vector2 mostThreateningBodyPos = null;
 		synchronized (this.perceivedBodies) {
 			if (this.perceivedBodies != null && !this.perceivedBodies.isEmpty()) {
 				// Loop through the perceived bodies of the agent
-				for (AgentBody body : this.perceivedBodies) {
+				for (int i = 0; i < this.perceivedBodies.size(); i++) {
+					AgentBody body = this.perceivedBodies.get(i);
 					// Checks if the agent's ahead vectors collide with the perceived body
 					boolean collisionWithBody = lineIntersectsBodyCircle(body.position);
 					if (collisionWithBody && (mostThreateningBodyPos == null || Vector2.dst(this.position.x,
@@ -435,21 +448,22 @@ public abstract class AgentBody extends SimulationEntity {
 	}
 
 	private Vector2 findMostThreateningWall() {
-		Vector2 mostThreateningWallPos = null;
-		synchronized (this.perceivedObjects) {
-			if (this.perceivedObjects != null && !this.perceivedObjects.isEmpty()) {
-				for (SimulationEntity wall : this.perceivedObjects) {
-					// Checks if the agent's ahead vectors collide with the perceived body
-					boolean collisionWithWall = lineIntersectsWallCircle(wall.getPosition());
-					if (collisionWithWall && (mostThreateningWallPos == null || Vector2.dst(this.position.x,
-							this.position.y, wall.getPosition().x, wall.getPosition().y) < Vector2.dst(this.position.x,
-									this.position.y, mostThreateningWallPos.x, mostThreateningWallPos.y))) {
-						mostThreateningWallPos = wall.getPosition();
-					}
-				}
-			}
+		if (this.wallDistanceField == null) {
+			return null;
+		}
+		// Walls close enough to one of the ahead vectors
+		Wall aheadWall = this.wallDistanceField.getWallWithin(this.ahead.x, this.ahead.y,
+				WALL_AHEAD_INTERSECTION_DISTANCE);
+		Wall ahead2Wall = this.wallDistanceField.getWallWithin(this.ahead2.x, this.ahead2.y,
+				WALL_AHEAD_INTERSECTION_DISTANCE);
+		if (aheadWall == null) {
+			return ahead2Wall == null ? null : ahead2Wall.getPosition();
 		}
-		return mostThreateningWallPos;
+		if (ahead2Wall == null || this.position.dst2(aheadWall.getPosition()) <= this.position
+				.dst2(ahead2Wall.getPosition())) {
+			return aheadWall.getPosition();
+		}
+		return ahead2Wall.getPosition();
 	}
 
 	public boolean hasReachedTarget() {
@@ -457,29 +471,6 @@ public abstract class AgentBody extends SimulationEntity {
 	}
 
 	public void followPath() {
-		// Below is the fix to the path bug (agents having thousands of nodes in their
-		// path)
-		// It removes the duplicated nodes
-		// TODO Fix the source of the problem (in the A* algorithm)
-		// BEGINNING OF THE FIX
-		// System.out.println(this.path.length());
-		List<Vector2> tempNodes = new ArrayList<>();
-		for (Vector2 node : this.path.getNodes()) {
-			boolean inList = false;
-			for (Vector2 nodeTemp : tempNodes) {
-				if (nodeTemp.x >= node.x - 1 && nodeTemp.y >= node.y - 1 && nodeTemp.x <= node.x + 1
-						&& nodeTemp.y <= node.y + 1) {
-					inList = true;
-					break;
-				}
-			}
-			if (!inList) {
-				tempNodes.add(node);
-			}
-		}
-		this.path = new Path(tempNodes);
-		// END OF THE FIX
-
 		if (hasReachedTarget() && this.path.length() > this.currentNode + 1) {
 			this.currentNode++;
 			this.target = this.path.getNode(this.currentNode);
@@ -492,7 +483,7 @@ public abstract class AgentBody extends SimulationEntity {
 	}
 
 	public boolean hasReachedPathLastNode() {
-		Vector2 lastNode = this.path.getNode(this.path.getNodes().size() - 1);
+		Vector2 lastNode = this.path.getLastNode();
 		return Vector2.dst(this.position.x, this.position.y, lastNode.x, lastNode.y) < REACHED_TARGET_DISTANCE;
 	}
 
@@ -0,0 +1,211 @@
+package re.legend.crowd_simulator.graphics;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+import re.legend.crowd_simulator.entities.bodies.Sex;
+import re.legend.crowd_simulator.simulation.Snapshot;
+
+/**
+ * Draws the bodies of a snapshot which are in the view of the camera
+ *
+ * The bodies are drawn where they are at the given progress of the step of
+ * the snapshot, interpolated between their positions at its beginning and at
+ * its end.
+ *
+ * The bodies outside of the rectangle seen by the camera are culled first, the
+ * visible ones being sorted from the top of the view to its bottom so that the
+ * bodies in front are drawn over the ones behind. Each visible body is then
+ * drawn with the region of the atlas matching its sex and facing, which is
+ * computed once from its velocity without any trigonometry. All the regions
+ * come from the same texture, so the batch is never flushed to switch
+ * textures. The debug overlays walk the visible bodies only.
+ */
+public class BodyRenderer {
+
+	// Facings of a body, in the order of the regions
+	static final int RIGHT = 0;
+	static final int BACK = 1;
+	static final int LEFT = 2;
+	static final int FACE = 3;
+
+	// Size of a body sprite (in px)
+	private static final int SPRITE_SIZE = 16;
+
+	// Distance beyond the view at which a body is still drawn, large enough for
+	// its sprite and its debug circles
+	private static final float MARGIN = 16;
+
+	// Regions of the atlas, indexed by sex ordinal * 4 + facing
+	private final TextureRegion[] regions = new TextureRegion[Sex.values().length * 4];
+
+	// Visible bodies of the last culled snapshot, sorted from back to front,
+	// with their interpolated positions
+	private int[] visible = new int[0];
+	private float[] visibleX = new float[0];
+	private float[] visibleY = new float[0];
+	private int visibleCount;
+
+	// Row of each body in the view, and the sorting buffers
+	private int[] bodyRows = new int[0];
+	private int[] culled = new int[0];
+	private float[] culledX = new float[0];
+	private float[] culledY = new float[0];
+	private int[] rowStart = new int[0];
+
+	/**
+	 * Constructor
+	 *
+	 * @param atlas the texture holding the sprites of the adult bodies
+	 */
+	public BodyRenderer(Texture atlas) {
+		setRegions(atlas, Sex.male, 0);
+		setRegions(atlas, Sex.female, 240);
+	}
+
+	private void setRegions(Texture atlas, Sex sex, int row) {
+		int offset = sex.ordinal() * 4;
+		this.regions[offset + LEFT] = new TextureRegion(atlas, 0, row, SPRITE_SIZE, SPRITE_SIZE);
+		this.regions[offset + FACE] = new TextureRegion(atlas, SPRITE_SIZE, row, SPRITE_SIZE, SPRITE_SIZE);
+		this.regions[offset + BACK] = new TextureRegion(atlas, 2 * SPRITE_SIZE, row, SPRITE_SIZE, SPRITE_SIZE);
+		this.regions[offset + RIGHT] = new TextureRegion(atlas, 3 * SPRITE_SIZE, row, SPRITE_SIZE, SPRITE_SIZE);
+	}
+
+	/**
+	 * Keeps the bodies of the snapshot which are in the view of the camera, and
+	 * sorts them from back to front
+	 *
+	 * @param snapshot the snapshot to draw, null if there is none yet
+	 * @param progress the fraction of the step of the snapshot at which the
+	 *                 bodies are drawn
+	 * @param camera   the camera of the map, up to date
+	 */
+	public void cull(Snapshot snapshot, float progress, OrthographicCamera camera) {
+		this.visibleCount = 0;
+		if (snapshot == null) {
+			return;
+		}
+		int size = snapshot.size();
+		if (this.visible.length < size) {
+			int capacity = size + size / 2;
+			this.visible = new int[capacity];
+			this.visibleX = new float[capacity];
+			this.visibleY = new float[capacity];
+			this.bodyRows = new int[capacity];
+			this.culled = new int[capacity];
+			this.culledX = new float[capacity];
+			this.culledY = new float[capacity];
+		}
+
+		float halfWidth = camera.viewportWidth * camera.zoom / 2 + MARGIN;
+		float halfHeight = camera.viewportHeight * camera.zoom / 2 + MARGIN;
+		float left = camera.position.x - halfWidth;
+		float right = camera.position.x + halfWidth;
+		float bottom = camera.position.y - halfHeight;
+		float top = camera.position.y + halfHeight;
+		int rows = (int) (top - bottom) + 1;
+		if (this.rowStart.length < rows + 1) {
+			this.rowStart = new int[rows + 1];
+		} else {
+			Arrays.fill(this.rowStart, 0, rows + 1, 0);
+		}
+
+		// Culls the bodies, counting the visible ones of each row of pixels
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (snapshot.getSex(i) == null) {
+				continue;
+			}
+			float x = snapshot.getX(i, progress);
+			float y = snapshot.getY(i, progress);
+			if (x < left || x > right || y < bottom || y > top) {
+				continue;
+			}
+			int row = (int) (top - y);
+			this.culled[count] = i;
+			this.culledX[count] = x;
+			this.culledY[count] = y;
+			this.bodyRows[count] = row;
+			this.rowStart[row + 1]++;
+			count++;
+		}
+
+		// Counting sort of the visible bodies by row, the top of the view first
+		for (int row = 0; row < rows; row++) {
+			this.rowStart[row + 1] += this.rowStart[row];
+		}
+		for (int i = 0; i < count; i++) {
+			int index = this.rowStart[this.bodyRows[i]]++;
+			this.visible[index] = this.culled[i];
+			this.visibleX[index] = this.culledX[i];
+			this.visibleY[index] = this.culledY[i];
+		}
+		this.visibleCount = count;
+	}
+
+	/**
+	 * Draws the visible bodies of the last culled snapshot
+	 *
+	 * @param snapshot the snapshot given to {@link #cull}
+	 * @param batch    the batch of the map, begun
+	 */
+	public void draw(Snapshot snapshot, SpriteBatch batch) {
+		for (int v = 0; v < this.visibleCount; v++) {
+			int i = this.visible[v];
+			int facing = facing(snapshot.getVelocityX(i), snapshot.getVelocityY(i));
+			TextureRegion region = this.regions[snapshot.getSex(i).ordinal() * 4 + facing];
+			batch.draw(region, this.visibleX[v] - SPRITE_SIZE / 2, this.visibleY[v]);
+		}
+	}
+
+	/**
+	 * @return the indices of the visible bodies in the last culled snapshot, the
+	 *         first {@link #getVisibleCount()} ones only are meaningful
+	 */
+	public int[] getVisible() {
+		return this.visible;
+	}
+
+	/**
+	 * @param index the index of a body in {@link #getVisible()}
+	 * @return the interpolated x coordinate of the visible body
+	 */
+	public float getVisibleX(int index) {
+		return this.visibleX[index];
+	}
+
+	/**
+	 * @param index the index of a body in {@link #getVisible()}
+	 * @return the interpolated y coordinate of the visible body
+	 */
+	public float getVisibleY(int index) {
+		return this.visibleY[index];
+	}
+
+	/**
+	 * @return the number of visible bodies in the last culled snapshot
+	 */
+	public int getVisibleCount() {
+		return this.visibleCount;
+	}
+
+	/**
+	 * Facing of a body from its velocity, the quarter of the circle holding the
+	 * velocity: right between -45 and 45 degrees, back up to 135, left up to 225
+	 * and face up to 315. A still body faces right.
+	 *
+	 * @param velocityX the velocity of the body on the x axis
+	 * @param velocityY the velocity of the body on the y axis
+	 * @return the facing of the body
+	 */
+	static int facing(float velocityX, float velocityY) {
+		if (Math.abs(velocityX) >= Math.abs(velocityY)) {
+			return velocityX < 0 ? LEFT : RIGHT;
+		}
+		return velocityY > 0 ? BACK : FACE;
+	}
+}
@@ -0,0 +1,177 @@
+package re.legend.crowd_simulator.graphics;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Renders the texts displayed over the map (timer and counters)
+ *
+ * The glyphs of the labels and of the numbers are rasterized once, in a single
+ * atlas, when the renderer is created. Each text keeps its own layout, which is
+ * only computed again when the text changes, so drawing the HUD neither
+ * generates fonts nor allocates anything from one frame to the next.
+ */
+public class HudRenderer implements Disposable {
+
+	// Characters of the formatted numbers: the digits, the separators and the
+	// sign
+	public static final String NUMBER_CHARACTERS = "0123456789.,- ";
+
+	// Size of the font (in px)
+	public static final int FONT_SIZE = 30;
+
+	// Font whose glyphs are in the atlas
+	private final BitmapFont font;
+
+	// Batch drawing in screen coordinates
+	private final SpriteBatch batch;
+
+	// Projection on the screen, updated when the window is resized
+	private final Matrix4 projection = new Matrix4();
+
+	/**
+	 * Constructor
+	 *
+	 * @param fontFile the TrueType font of the texts
+	 * @param width    the width of the screen
+	 * @param height   the height of the screen
+	 * @param labels   every label drawn by the HUD, their characters are added
+	 *                 to the ones of the numbers in the atlas
+	 */
+	public HudRenderer(FileHandle fontFile, int width, int height, String... labels) {
+		FreeTypeFontGenerator generator = new FreeTypeFontGenerator(fontFile);
+		FreeTypeFontParameter parameter = new FreeTypeFontParameter();
+		parameter.size = FONT_SIZE;
+		parameter.characters = characters(labels);
+		this.font = generator.generateFont(parameter);
+		this.font.setColor(1.0f, 1.0f, 1.0f, 1.0f);
+		// The atlas is built, the generator is not needed anymore
+		generator.dispose();
+		this.batch = new SpriteBatch();
+		resize(width, height);
+	}
+
+	/**
+	 * @param labels the labels drawn by the HUD
+	 * @return the characters of the labels and of the numbers, each one once
+	 */
+	static String characters(String... labels) {
+		StringBuilder characters = new StringBuilder(NUMBER_CHARACTERS);
+		for (String label : labels) {
+			for (int i = 0; i < label.length(); i++) {
+				char character = label.charAt(i);
+				if (characters.indexOf(String.valueOf(character)) < 0) {
+					characters.append(character);
+				}
+			}
+		}
+		return characters.toString();
+	}
+
+	/**
+	 * Updates the projection when the window is resized
+	 *
+	 * @param width  the width of the screen
+	 * @param height the height of the screen
+	 */
+	public void resize(int width, int height) {
+		this.projection.setToOrtho2D(0, 0, width, height);
+	}
+
+	/**
+	 * @return the projection on the screen, shared with the other renderers
+	 *         drawing over the map
+	 */
+	public Matrix4 getProjection() {
+		return this.projection;
+	}
+
+	/**
+	 * @param text the initial text
+	 * @return a new text drawn with the font of this renderer
+	 */
+	public Text createText(String text) {
+		Text result = new Text();
+		result.setText(text);
+		return result;
+	}
+
+	/**
+	 * Starts drawing texts
+	 */
+	public void begin() {
+		this.batch.setProjectionMatrix(this.projection);
+		this.batch.begin();
+	}
+
+	/**
+	 * Draws a text, between {@link #begin()} and {@link #end()}
+	 *
+	 * @param text the text
+	 * @param x    the x coordinate of its left side
+	 * @param y    the y coordinate of its top
+	 */
+	public void draw(Text text, float x, float y) {
+		this.font.draw(this.batch, text.layout, x, y);
+	}
+
+	/**
+	 * Ends drawing texts
+	 */
+	public void end() {
+		this.batch.end();
+	}
+
+	@Override
+	public void dispose() {
+		this.batch.dispose();
+		this.font.dispose();
+	}
+
+	/**
+	 * Text of the HUD, with its layout
+	 */
+	public class Text {
+
+		// Displayed text
+		private String text;
+
+		// Layout of the text, computed when the text changes
+		private final GlyphLayout layout = new GlyphLayout();
+
+		private Text() {
+		}
+
+		/**
+		 * Changes the displayed text, the layout is only computed again if it differs
+		 *
+		 * @param text the new text
+		 */
+		public void setText(String text) {
+			if (!text.equals(this.text)) {
+				this.text = text;
+				this.layout.setText(HudRenderer.this.font, text);
+			}
+		}
+
+		/**
+		 * @return the width of the text (in px)
+		 */
+		public float getWidth() {
+			return this.layout.width;
+		}
+
+		/**
+		 * @return the height of the text (in px)
+		 */
+		public float getHeight() {
+			return this.layout.height;
+		}
+	}
+}
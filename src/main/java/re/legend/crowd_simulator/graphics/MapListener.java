@@ -1,16 +1,19 @@
 package re.legend.crowd_simulator.graphics;
 
-import java.util.List;
-
-import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.simulation.SnapshotBuffer;
 
 /**
- *
+ * Observer of the simulation, notified by the environment at the end of each
+ * step
  */
 public interface MapListener {
 	
 	/**
+	 * Called once the snapshot of a step has been published, the listener takes
+	 * the snapshots from the buffer on its own thread and never reads the live
+	 * bodies
 	 * 
+	 * @param snapshots the buffer the snapshots of the simulation are published in
 	 */
-	void update(List<AgentBody> bodies, float time);
+	void update(SnapshotBuffer snapshots);
 }
@@ -1,5 +1,6 @@
 package re.legend.crowd_simulator.graphics;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,16 +9,12 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
-import com.badlogic.gdx.graphics.g2d.GlyphLayout;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
-import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 import com.badlogic.gdx.maps.MapLayer;
@@ -27,7 +24,7 @@ import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
-import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
@@ -36,7 +33,6 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
-import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.MutableGraph;
 import com.kotcrab.vis.ui.VisUI;
 import com.kotcrab.vis.ui.util.form.SimpleFormValidator;
@@ -52,14 +48,17 @@ import com.kotcrab.vis.ui.widget.VisValidatableTextField;
 import com.kotcrab.vis.ui.widget.VisWindow;
 
 import re.legend.crowd_simulator.entities.SimulationEntity;
-import re.legend.crowd_simulator.entities.bodies.AdultBody;
-import re.legend.crowd_simulator.entities.bodies.AgentBody;
-import re.legend.crowd_simulator.entities.bodies.Sex;
 import re.legend.crowd_simulator.entities.gameobjects.Shop;
 import re.legend.crowd_simulator.entities.gameobjects.Wall;
 import re.legend.crowd_simulator.pathfinding.AStarNode;
+import re.legend.crowd_simulator.pathfinding.NavigationCache;
+import re.legend.crowd_simulator.simulation.Snapshot;
+import re.legend.crowd_simulator.simulation.SnapshotBuffer;
 
 public class SimulationApplication extends ApplicationAdapter implements InputProcessor, MapListener {
+	// Number of sprites of the map batch, the largest a batch can hold
+	private static final int BODY_BATCH_SIZE = 8191;
+
 	private OrthographicCamera camera;
 
 	private TiledMap map;
@@ -69,8 +68,19 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 	// Cursor position on last click
 	private Vector2 lastTouch;
 
-	// Agent bodies to render, updated by the update() method
-	private List<AgentBody> bodies;
+	// Snapshots of the bodies published by the environment, set by the update()
+	// method
+	private volatile SnapshotBuffer snapshots;
+
+	// Snapshot rendered by the last frame
+	private Snapshot snapshot;
+
+	// Simulated time at which the bodies are rendered, within the step of the
+	// latest snapshot
+	private float renderTime;
+
+	// Renderer of the bodies
+	private BodyRenderer bodyRenderer;
 
 	// Walls list, not used in this class but retrieved
 	private List<Wall> walls;
@@ -83,46 +93,35 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 
 	// Adult bodies textures sprite
 	private Texture adultTextures;
-	private TextureRegion adultMaleStillLeft;
-	private TextureRegion adultMaleStillRight;
-	private TextureRegion adultMaleStillFace;
-	private TextureRegion adultMaleStillBack;
-	private TextureRegion adultFemaleStillLeft;
-	private TextureRegion adultFemaleStillRight;
-	private TextureRegion adultFemaleStillFace;
-	private TextureRegion adultFemaleStillBack;
 
 	// SpriteBatche for the map
 	private SpriteBatch spriteBatch;
 
-	// SpriteBatch fixed (for texts)
-	SpriteBatch fixedSpriteBatch;
-
 	// Map size
 	private int mapWidth;
 	private int mapHeight;
 
+	// Renderer of the texts over the map
+	private HudRenderer hud;
+
+	// Labels of the texts, the atlas of the HUD holds their characters
+	private static final String TIMER_LABEL = "Time: ";
+	private static final String COUNTER_LABEL = "Shoppers: ";
+	private static final String EVACUATION_LABEL = "Evacuation: ";
+	private static final String SECONDS_UNIT = "s";
+
 	// Timer
-	private String strTimer;
-	private BitmapFont fontTimer;
-	private GlyphLayout timerLayout;
+	private HudRenderer.Text timer;
 
 	// Number of agents counter
-	private String strCounter;
-	private BitmapFont fontCounter;
-	private GlyphLayout counterLayout;
+	private HudRenderer.Text counter;
 	
 	// Time since the beginning of the evacuation
-	private String strCounterEvacuation;
-	private BitmapFont fontCounterEvacuation;
-	private GlyphLayout counterEvacuationLayout;
-	private long evacuationStartTime;
+	private HudRenderer.Text counterEvacuation;
+	// Simulated time at which the evacuation started, negative until it is known
+	private float evacuationStartTime = -1;
 	private float elapsedTime;
 
-	// Font generator and parameter
-	private FreeTypeFontGenerator generator;
-	private FreeTypeFontParameter parameter;
-
 	// Shape renderer
 	private ShapeRenderer shapeRenderer;
 
@@ -162,42 +161,30 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 	@Override
 	public void create() {
 		// Attributes instantiation
-		this.bodies = new ArrayList<>();
 		this.lastTouch = new Vector2();
-		this.spriteBatch = new SpriteBatch();
-		this.fixedSpriteBatch = new SpriteBatch();
+		this.spriteBatch = new SpriteBatch(BODY_BATCH_SIZE);
 		this.walls = new ArrayList<>();
 		this.shops = new ArrayList<>();
 		this.exits = new ArrayList<>();
 
 		this.shapeRenderer = new ShapeRenderer();
-		this.waypoints = GraphBuilder.undirected().build();
 
 		// Loads bodies textures
 		this.adultTextures = new Texture("adult_bodies.png");
-		this.adultMaleStillLeft = new TextureRegion(this.adultTextures, 0, 0, 16, 16);
-		this.adultMaleStillFace = new TextureRegion(this.adultTextures, 16, 0, 16, 16);
-		this.adultMaleStillBack = new TextureRegion(this.adultTextures, 32, 0, 16, 16);
-		this.adultMaleStillRight = new TextureRegion(this.adultTextures, 48, 0, 16, 16);
-		this.adultFemaleStillLeft = new TextureRegion(this.adultTextures, 0, 240, 16, 16);
-		this.adultFemaleStillFace = new TextureRegion(this.adultTextures, 16, 240, 16, 16);
-		this.adultFemaleStillBack = new TextureRegion(this.adultTextures, 32, 240, 16, 16);
-		this.adultFemaleStillRight = new TextureRegion(this.adultTextures, 48, 240, 16, 16);
+		this.bodyRenderer = new BodyRenderer(this.adultTextures);
 
-		// Timer creation and stamp the startTimer
-		this.strTimer = "Time: 0";
-		this.fontTimer = new BitmapFont();
-		this.timerLayout = new GlyphLayout();
+		// Generates the glyphs of the texts once
+		this.hud = new HudRenderer(Gdx.files.internal("fonts/coolvetica.ttf"), Gdx.graphics.getWidth(),
+				Gdx.graphics.getHeight(), TIMER_LABEL, COUNTER_LABEL, EVACUATION_LABEL, SECONDS_UNIT);
 
 		// Timer creation and stamp the startTimer
-		this.strCounter = "Shoppers: 0";
-		this.fontCounter = new BitmapFont();
-		this.counterLayout = new GlyphLayout();
-		
+		this.timer = this.hud.createText(TIMER_LABEL + 0);
+
 		// Number of agents counter
-		this.strCounterEvacuation = "Evacuation: ";
-		this.fontCounterEvacuation = new BitmapFont();
-		this.counterEvacuationLayout = new GlyphLayout();
+		this.counter = this.hud.createText(COUNTER_LABEL + 0);
+		
+		// Time since the beginning of the evacuation
+		this.counterEvacuation = this.hud.createText(EVACUATION_LABEL);
 
 		// Display manager
 		this.renderWallsHitboxes = false;
@@ -212,7 +199,8 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 
 		// Loads map
 		this.loader = new TmxMapLoader();
-		this.map = this.loader.load("map/map2.tmx");
+		FileHandle mapFile = Gdx.files.internal("map/map2.tmx");
+		this.map = this.loader.load(mapFile.path());
 		this.renderer = new OrthogonalTiledMapRenderer(map);
 		this.mapWidth = (int) map.getProperties().get("width") * (int) map.getProperties().get("tilewidth");
 		this.mapHeight = (int) map.getProperties().get("height") * (int) map.getProperties().get("tileheight");
@@ -265,29 +253,22 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 		}
 
 		// Retrieves the waypoints from the path object layer of the map and build a
-		// graph
+		// graph, or reads it from the navigation cache next to the map if it is up to
+		// date
+		List<Vector2> waypointPositions = new ArrayList<>();
 		MapLayer pathLayer = this.map.getLayers().get("Path");
 		for (MapObject waypoint : pathLayer.getObjects()) {
 			float xPos = (float) waypoint.getProperties().get("x");
 			float yPos = (float) waypoint.getProperties().get("y");
-			AStarNode newWaypoint = new AStarNode(xPos, yPos);
-			this.waypoints.addNode(newWaypoint);
-			for (AStarNode node : this.waypoints.nodes()) {
-				if (node != newWaypoint && Vector2.dst(node.x, node.y, newWaypoint.x, newWaypoint.y) < 60f) {
-					this.waypoints.putEdge(node, newWaypoint);
-				}
-			}
+			waypointPositions.add(new Vector2(xPos, yPos));
 		}
+		File cacheFile = mapFile.file().isFile() ? NavigationCache.getCacheFile(mapFile.file()) : null;
+		this.waypoints = NavigationCache.loadOrBuild(mapFile.readBytes(), cacheFile, waypointPositions);
 
 		// Sets camera properties
 		this.camera = new OrthographicCamera(Gdx.graphics.getWidth() / 5, Gdx.graphics.getHeight() / 5);
 		this.camera.position.set(this.mapWidth / 2, this.mapHeight / 2, 0);
 
-		// Initializes font generator and parameter for the timer text
-		this.generator = new FreeTypeFontGenerator(Gdx.files.internal("fonts/coolvetica.ttf"));
-		this.parameter = new FreeTypeFontParameter();
-		this.parameter.size = 30;
-
 		// Stage initialization
 		VisUI.load();
 		this.stage = new Stage(new ScreenViewport());
@@ -475,7 +456,6 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 				Sound alarm = Gdx.audio.newSound(Gdx.files.internal("sounds/alarm.wav"));
 				long id = alarm.play(1.0f);
 				alarm.setLooping(id, true);
-				evacuationStartTime = System.currentTimeMillis();
 			}
 		});
 		optionsMenu.addItem(triggerBombItem);
@@ -515,8 +495,7 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 	@Override
 	public void dispose() {
 		this.spriteBatch.dispose();
-		this.fixedSpriteBatch.dispose();
-		this.generator.dispose();
+		this.hud.dispose();
 	}
 
 	@Override
@@ -532,39 +511,32 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 
 		this.camera.update();
 
+		// Takes the latest snapshot of the bodies, without waiting for the environment
+		SnapshotBuffer buffer = this.snapshots;
+		Snapshot latest = buffer == null ? null : buffer.getLatest();
+		if (latest != null && latest != this.snapshot) {
+			updateCounters(latest);
+		}
+		this.snapshot = latest;
+
+		// Advances the render time at the pace of the simulation, the bodies being
+		// interpolated between the beginning and the end of the latest step
+		float progress = 1;
+		if (latest != null) {
+			this.renderTime = MathUtils.clamp(this.renderTime + Gdx.graphics.getDeltaTime() * latest.getTimeScale(),
+					latest.getPreviousTime(), latest.getTime());
+			progress = latest.getProgress(this.renderTime);
+		}
+
 		// Renders map
 		this.renderer.setView(this.camera);
 		this.renderer.render();
 
-		// Renders the bodies on the map
+		// Renders the bodies in the view of the camera
+		this.bodyRenderer.cull(latest, progress, this.camera);
 		this.spriteBatch.setProjectionMatrix(this.camera.combined);
 		this.spriteBatch.begin();
-		for (AgentBody body : this.bodies) {
-			if (body instanceof AdultBody) {
-				if (((AdultBody) body).getSex() == Sex.male) {
-					if (body.getLinearVelocity().angle() > 315f || body.getLinearVelocity().angle() <= 45f) {
-						this.spriteBatch.draw(this.adultMaleStillRight, body.getPosition().x - 8, body.getPosition().y);
-					} else if (body.getLinearVelocity().angle() > 45f && body.getLinearVelocity().angle() <= 135f) {
-						this.spriteBatch.draw(this.adultMaleStillBack, body.getPosition().x - 8, body.getPosition().y);
-					} else if (body.getLinearVelocity().angle() > 135f && body.getLinearVelocity().angle() <= 225f) {
-						this.spriteBatch.draw(this.adultMaleStillLeft, body.getPosition().x - 8, body.getPosition().y);
-					} else if (body.getLinearVelocity().angle() > 225f && body.getLinearVelocity().angle() <= 315f) {
-						this.spriteBatch.draw(this.adultMaleStillFace, body.getPosition().x - 8, body.getPosition().y);
-					}
-				} else {
-					if (body.getLinearVelocity().angle() > 315f || body.getLinearVelocity().angle() <= 45f) {
-						this.spriteBatch.draw(this.adultFemaleStillRight, body.getPosition().x - 8, body.getPosition().y);
-					} else if (body.getLinearVelocity().angle() > 45f && body.getLinearVelocity().angle() <= 135f) {
-						this.spriteBatch.draw(this.adultFemaleStillBack, body.getPosition().x - 8, body.getPosition().y);
-					} else if (body.getLinearVelocity().angle() > 135f && body.getLinearVelocity().angle() <= 225f) {
-						this.spriteBatch.draw(this.adultFemaleStillLeft, body.getPosition().x - 8, body.getPosition().y);
-					} else if (body.getLinearVelocity().angle() > 225f && body.getLinearVelocity().angle() <= 315f) {
-						this.spriteBatch.draw(this.adultFemaleStillFace, body.getPosition().x - 8, body.getPosition().y);
-					}
-				}
-
-			}
-		}
+		this.bodyRenderer.draw(latest, this.spriteBatch);
 		this.spriteBatch.end();
 
 		// Renders the forces applied on the agents
@@ -593,64 +565,62 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 			}
 		}
 
-		for (AgentBody body : this.bodies) {
-			if (body instanceof AdultBody) {
-				// Agent's private circle
-				if (renderAgentCircle) {
-					this.shapeRenderer.setColor(0, 0, 1, 1); // Blue
-					this.shapeRenderer.circle(body.getPosition().x, body.getPosition().y, 10);
-				}
-				// Agent's ahead vector
-				if (renderAheadVector) {
-					this.shapeRenderer.setColor(1, 1, 1, 1); // White
-					this.shapeRenderer.line(body.getPosition().x, body.getPosition().y, body.getAhead().x,
-							body.getAhead().y);
-				}
-				// Agent's ahead2 vector
-				if (renderAhead2Vector) {
-					this.shapeRenderer.setColor(1, 0, 0, 1); // Red
-					this.shapeRenderer.line(body.getPosition().x, body.getPosition().y, body.getAhead2().x,
-							body.getAhead2().y);
-				}
-				// Agent's velocity vector
-				if (renderVelocityVector) {
-					this.shapeRenderer.setColor(0, 1, 0, 1); // Green
-					this.shapeRenderer.line(body.getPosition().x, body.getPosition().y,
-							body.getPosition().x + body.getLinearVelocity().x,
-							body.getPosition().y + body.getLinearVelocity().y);
-				}
-				// Agent's avoidance vector
-				if (renderAvoidanceVector) {
-					this.shapeRenderer.setColor(0.5f, 0, 0.5f, 1); // Purple
-					this.shapeRenderer.line(body.getPosition().x, body.getPosition().y,
-							body.getPosition().x + body.getAvoidance().x, body.getPosition().y + body.getAvoidance().y);
-				}
+		// The overlays are only rendered for the visible bodies
+		int[] visible = this.bodyRenderer.getVisible();
+		for (int v = 0; v < this.bodyRenderer.getVisibleCount(); v++) {
+			int i = visible[v];
+			float x = this.bodyRenderer.getVisibleX(v);
+			float y = this.bodyRenderer.getVisibleY(v);
+			// Agent's private circle
+			if (renderAgentCircle) {
+				this.shapeRenderer.setColor(0, 0, 1, 1); // Blue
+				this.shapeRenderer.circle(x, y, 10);
+			}
+			// Agent's ahead vector
+			if (renderAheadVector) {
+				this.shapeRenderer.setColor(1, 1, 1, 1); // White
+				this.shapeRenderer.line(x, y, latest.getAheadX(i), latest.getAheadY(i));
+			}
+			// Agent's ahead2 vector
+			if (renderAhead2Vector) {
+				this.shapeRenderer.setColor(1, 0, 0, 1); // Red
+				this.shapeRenderer.line(x, y, latest.getAhead2X(i), latest.getAhead2Y(i));
+			}
+			// Agent's velocity vector
+			if (renderVelocityVector) {
+				this.shapeRenderer.setColor(0, 1, 0, 1); // Green
+				this.shapeRenderer.line(x, y, x + latest.getVelocityX(i), y + latest.getVelocityY(i));
+			}
+			// Agent's avoidance vector
+			if (renderAvoidanceVector) {
+				this.shapeRenderer.setColor(0.5f, 0, 0.5f, 1); // Purple
+				this.shapeRenderer.line(x, y, x + latest.getAvoidanceX(i), y + latest.getAvoidanceY(i));
+			}
 
-				// Agent's desired velocity vector
-				if (renderDesiredVelocityVector) {
-					this.shapeRenderer.setColor(1, 0, 0, 1); // Red
-					this.shapeRenderer.line(body.getPosition().x, body.getPosition().y,
-							body.getPosition().x + body.getDesiredVelocity().x,
-							body.getPosition().y + body.getDesiredVelocity().y);
-				}
+			// Agent's desired velocity vector
+			if (renderDesiredVelocityVector) {
+				this.shapeRenderer.setColor(1, 0, 0, 1); // Red
+				this.shapeRenderer.line(x, y, x + latest.getDesiredVelocityX(i), y + latest.getDesiredVelocityY(i));
+			}
 
-				// Renders agents' paths
-				if (renderPaths && body.getPath() != null && !body.getPath().getNodes().isEmpty()) {
-					this.shapeRenderer.setColor(1, 0, 0, 1);
-					for (Vector2 node : body.getPath().getNodes()) {
-						this.shapeRenderer.circle(node.x, node.y, 5);
-					}
-					for (int i = 0; i < body.getPath().getNodes().size() - 1; i++) {
-						this.shapeRenderer.line(body.getPath().getNodes().get(i), body.getPath().getNodes().get(i + 1));
-					}
+			// Renders agents' paths
+			int pathLength = latest.getPathLength(i);
+			if (renderPaths && pathLength > 0) {
+				this.shapeRenderer.setColor(1, 0, 0, 1);
+				for (int n = 0; n < pathLength; n++) {
+					this.shapeRenderer.circle(latest.getPathX(i, n), latest.getPathY(i, n), 5);
 				}
-
-				// Renders agents' target
-				if (renderTarget) {
-					this.shapeRenderer.setColor(1, 0, 0, 1);
-					this.shapeRenderer.circle(body.getTarget().x, body.getTarget().y, 5);
+				for (int n = 0; n < pathLength - 1; n++) {
+					this.shapeRenderer.line(latest.getPathX(i, n), latest.getPathY(i, n), latest.getPathX(i, n + 1),
+							latest.getPathY(i, n + 1));
 				}
 			}
+
+			// Renders agents' target
+			if (renderTarget && latest.hasTarget(i)) {
+				this.shapeRenderer.setColor(1, 0, 0, 1);
+				this.shapeRenderer.circle(latest.getTargetX(i), latest.getTargetY(i), 5);
+			}
 		}
 		this.shapeRenderer.end();
 
@@ -659,63 +629,32 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 			Gdx.graphics.getGL20().glEnable(GL20.GL_BLEND);
 			Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
 			this.shapeRenderer.begin(ShapeType.Filled);
-			this.shapeRenderer.setProjectionMatrix(
-					new Matrix4().setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight()));
-			this.shapeRenderer.setColor(
-					new Color(1, 0, 0, (float) Math.cos(Math.PI / 2 * System.currentTimeMillis() / 1000) * 0.5f));
+			this.shapeRenderer.setProjectionMatrix(this.hud.getProjection());
+			// The color is set from its components, nothing is allocated from one frame to the next
+			this.shapeRenderer.setColor(1, 0, 0,
+					(float) Math.cos(Math.PI / 2 * System.currentTimeMillis() / 1000) * 0.5f);
 			this.shapeRenderer.rect(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
 			this.shapeRenderer.end();
 			Gdx.gl.glDisable(GL20.GL_BLEND);
 		}
 
-		// Timer rendering
-		// Changes the parameter text to the current time
-		this.parameter.characters = this.strTimer;
-		// Generates the timer bitmap
-		this.fontTimer = this.generator.generateFont(this.parameter);
-		// Sets layout (to get width then)
-		this.timerLayout.setText(this.fontTimer, this.strTimer);
-		// Renders timer
-		this.fixedSpriteBatch.begin();
-		this.fixedSpriteBatch.setProjectionMatrix(
-				new Matrix4().setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight()));
-		this.fontTimer.setColor(1.0f, 1.0f, 1.0f, 1.0f);
-		float posX = (Gdx.graphics.getWidth() - this.timerLayout.width) / 2;
-		float posY = this.timerLayout.height + 10;
-		this.fontTimer.draw(this.fixedSpriteBatch, this.strTimer, posX, posY);
-		this.fixedSpriteBatch.end();
-
-		// Counter rendering
-		// Changes the parameter text to the current time
-		this.parameter.characters = this.strCounter;
-		// Generates the timer bitmap
-		this.fontCounter = this.generator.generateFont(this.parameter);
-		// Sets layout (to get width then)
-		this.counterLayout.setText(this.fontCounter, this.strCounter);
-		// Renders counter
-		this.fixedSpriteBatch.begin();
-		this.fontCounter.setColor(1.0f, 1.0f, 1.0f, 1.0f);
-		posX = (Gdx.graphics.getWidth() - this.counterLayout.width) / 2;
-		posY = Gdx.graphics.getHeight() - 10 - this.counterLayout.height;
-		this.fontCounter.draw(this.fixedSpriteBatch, this.strCounter, posX, posY);
-		this.fixedSpriteBatch.end();
-		
-		// Evacuation counter rendering
+		// Texts rendering, their layouts are only computed when they change
+		this.hud.begin();
+		// Timer
+		float posX = (Gdx.graphics.getWidth() - this.timer.getWidth()) / 2;
+		float posY = this.timer.getHeight() + 10;
+		this.hud.draw(this.timer, posX, posY);
+		// Counter
+		posX = (Gdx.graphics.getWidth() - this.counter.getWidth()) / 2;
+		posY = Gdx.graphics.getHeight() - 10 - this.counter.getHeight();
+		this.hud.draw(this.counter, posX, posY);
+		// Evacuation counter
 		if (bombTriggered) {
-			// Changes the parameter text to the current time
-			this.parameter.characters = this.strCounterEvacuation;
-			// Generates the timer bitmap
-			this.fontCounterEvacuation = this.generator.generateFont(this.parameter);
-			// Sets layout (to get width then)
-			this.counterEvacuationLayout.setText(this.fontCounterEvacuation, this.strCounterEvacuation);
-			// Renders counter
-			this.fixedSpriteBatch.begin();
-			this.fontCounterEvacuation.setColor(1.0f, 1.0f, 1.0f, 1.0f);
-			posX = (Gdx.graphics.getWidth() - this.counterEvacuationLayout.width) / 2;
-			posY = this.timerLayout.height + counterEvacuationLayout.height + 20;
-			this.fontCounterEvacuation.draw(this.fixedSpriteBatch, this.strCounterEvacuation, posX, posY);
-			this.fixedSpriteBatch.end();
+			posX = (Gdx.graphics.getWidth() - this.counterEvacuation.getWidth()) / 2;
+			posY = this.timer.getHeight() + this.counterEvacuation.getHeight() + 20;
+			this.hud.draw(this.counterEvacuation, posX, posY);
 		}
+		this.hud.end();
 
 		// Stage rendering
 		float delta = Gdx.graphics.getDeltaTime();
@@ -727,6 +666,7 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 	@Override
 	public void resize(int width, int height) {
 		this.stage.getViewport().update(width, height, true);
+		this.hud.resize(width, height);
 		this.startButton.setPosition((Gdx.graphics.getWidth() - this.startButton.getWidth()) / 2,
 				(Gdx.graphics.getHeight() - this.startButton.getHeight()) / 2);
 	}
@@ -792,15 +732,28 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 	}
 
 	@Override
-	public void update(List<AgentBody> bodies, float time) {
-		this.bodies = bodies;
-		this.strTimer = "Time: " + String.format("%.2f", time) + "s";
-		this.strCounter = "Shoppers: " + bodies.size();
+	public void update(SnapshotBuffer snapshots) {
+		this.snapshots = snapshots;
+	}
+
+	/**
+	 * Updates the texts of the counters from a new snapshot
+	 * 
+	 * @param snapshot the snapshot
+	 */
+	private void updateCounters(Snapshot snapshot) {
+		float time = snapshot.getTime();
+		this.timer.setText(TIMER_LABEL + String.format("%.2f", time) + SECONDS_UNIT);
+		this.counter.setText(COUNTER_LABEL + snapshot.size());
 		if (bombTriggered) {
-			if (bodies.size() > 0) {
-				this.elapsedTime = (System.currentTimeMillis() - evacuationStartTime) / 1000f;
+			// The evacuation starts at the first step that sees the bomb
+			if (this.evacuationStartTime < 0) {
+				this.evacuationStartTime = time;
+			}
+			if (snapshot.size() > 0) {
+				this.elapsedTime = time - this.evacuationStartTime;
 			}
-			this.strCounterEvacuation = "Evacuation: " + String.format("%.2f", elapsedTime) + "s";	
+			this.counterEvacuation.setText(EVACUATION_LABEL + String.format("%.2f", elapsedTime) + SECONDS_UNIT);
 		}
 	}
 
@@ -829,6 +782,15 @@ public class SimulationApplication extends ApplicationAdapter implements InputPr
 		return this.bombTriggered;
 	}
 
+	/**
+	 * @return true if an overlay needs the steering vectors, targets or paths of
+	 *         the bodies
+	 */
+	public boolean isDebugViewOn() {
+		return this.renderAheadVector || this.renderAhead2Vector || this.renderAvoidanceVector
+				|| this.renderDesiredVelocityVector || this.renderPaths || this.renderTarget;
+	}
+
 	public List<Vector2> getExits() {
 		return this.exits;
 	}
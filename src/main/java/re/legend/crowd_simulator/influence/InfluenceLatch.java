@@ -0,0 +1,116 @@
+package re.legend.crowd_simulator.influence;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts the bodies which answered the perceptions of a step, so that the
+ * environment can sleep until every agent has submitted its motion
+ *
+ * The environment begins a step with the number of bodies it notified, and
+ * sends the number of the step with the perceptions. Each agent answers with
+ * the number of the perception it handled: a body is counted once per step,
+ * an answer to an earlier step is ignored, and a body leaving the map counts
+ * as answered. The number of the step and the count of its answers share a
+ * single atomic word, so a step begins with no answer in one write and an
+ * answer is only counted for the step it was given. The lock is taken once,
+ * by the answer completing the step, to wake the environment up.
+ */
+public final class InfluenceLatch {
+
+	// Number of the current step in the high half, number of bodies which
+	// answered it in the low half
+	private final AtomicLong state = new AtomicLong();
+
+	// Number of bodies notified at the beginning of the step
+	private volatile int expected;
+
+	// Signaled when every body has answered
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition completed = this.lock.newCondition();
+
+	/**
+	 * Begins a step, called once the perceptions are about to be sent
+	 *
+	 * @param expected the number of bodies notified
+	 * @return the number of the step, sent with the perceptions
+	 */
+	public int begin(int expected) {
+		// Set before the step is published, for its answers to be counted
+		// against it
+		this.expected = expected;
+		int step = getStep() + 1;
+		this.state.set((long) step << 32);
+		return step;
+	}
+
+	/**
+	 * @return the number of the current step
+	 */
+	public int getStep() {
+		return step(this.state.get());
+	}
+
+	/**
+	 * Counts the answer of a body, if it answers the current step and has not
+	 * answered it yet
+	 *
+	 * @param slot the motion slot of the body
+	 * @param step the number of the step of the perception answered
+	 */
+	public void answer(MotionSlot slot, int step) {
+		if (step != getStep() || !slot.markAnswered(step)) {
+			return;
+		}
+		long current;
+		do {
+			current = this.state.get();
+			if (step(current) != step) {
+				// The next step began meanwhile
+				return;
+			}
+		} while (!this.state.compareAndSet(current, current + 1));
+
+		if (answers(current) + 1 >= this.expected) {
+			this.lock.lock();
+			try {
+				this.completed.signalAll();
+			} finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Waits until every body notified at the beginning of the step has answered
+	 *
+	 * @param timeout the longest wait (in ms)
+	 * @return true if every body answered, false if the delay elapsed first
+	 * @throws InterruptedException if the waiting thread is interrupted
+	 */
+	public boolean await(long timeout) throws InterruptedException {
+		long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+		this.lock.lock();
+		try {
+			while (answers(this.state.get()) < this.expected) {
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = this.completed.awaitNanos(nanos);
+			}
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private static int step(long state) {
+		return (int) (state >>> 32);
+	}
+
+	private static int answers(long state) {
+		return (int) state;
+	}
+}
@@ -0,0 +1,107 @@
+package re.legend.crowd_simulator.influence;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Motion submitted by a body for the next step, stored in a single atomic
+ * word
+ *
+ * The two components of the motion are packed in a long, so a submission is a
+ * compare-and-set loop adding the new motion to the pending one, and the
+ * environment takes the pending motion and empties the slot with a single
+ * atomic exchange. The agent threads never block, nor wait for the
+ * environment, and the exchange is the step boundary: a motion submitted
+ * before it is applied at this step, a motion submitted after it at the next
+ * one, none is lost nor applied twice.
+ *
+ * The slot also remembers the last step whose perceptions the body answered,
+ * for the {@link InfluenceLatch} to count each body once per step.
+ */
+public final class MotionSlot {
+
+	// Value of an empty slot, a pattern of two NaNs that the arithmetic on the
+	// motions does not produce
+	public static final long EMPTY = 0x7FC00001_7FC00001L;
+
+	private static final AtomicLongFieldUpdater<MotionSlot> UPDATER = AtomicLongFieldUpdater
+			.newUpdater(MotionSlot.class, "packed");
+
+	private static final AtomicIntegerFieldUpdater<MotionSlot> ANSWERED_UPDATER = AtomicIntegerFieldUpdater
+			.newUpdater(MotionSlot.class, "answeredStep");
+
+	// Pending motion, packed
+	private volatile long packed = EMPTY;
+
+	// Last step answered by the body, counted by the influence latch
+	private volatile int answeredStep = -1;
+
+	/**
+	 * Adds a motion to the pending one
+	 *
+	 * @param x the motion on the x axis
+	 * @param y the motion on the y axis
+	 */
+	public void add(float x, float y) {
+		long current;
+		long updated;
+		do {
+			current = this.packed;
+			updated = current == EMPTY ? pack(x, y) : pack(getX(current) + x, getY(current) + y);
+		} while (!UPDATER.compareAndSet(this, current, updated));
+	}
+
+	/**
+	 * Takes the pending motion and empties the slot
+	 *
+	 * @return the pending motion, packed, {@link #EMPTY} if there is none
+	 */
+	public long take() {
+		return UPDATER.getAndSet(this, EMPTY);
+	}
+
+	/**
+	 * @return true if a motion is pending
+	 */
+	public boolean isPending() {
+		return this.packed != EMPTY;
+	}
+
+	/**
+	 * Marks the step as answered by the body, a late answer to an earlier step
+	 * does not move the mark back
+	 *
+	 * @param step the number of the step
+	 * @return true if the body had not answered the step yet
+	 */
+	boolean markAnswered(int step) {
+		int current;
+		do {
+			current = this.answeredStep;
+			if (current >= step) {
+				return false;
+			}
+		} while (!ANSWERED_UPDATER.compareAndSet(this, current, step));
+		return true;
+	}
+
+	/**
+	 * @param packed a packed motion
+	 * @return the motion on the x axis, 0 if the motion is empty
+	 */
+	public static float getX(long packed) {
+		return packed == EMPTY ? 0 : Float.intBitsToFloat((int) (packed >>> 32));
+	}
+
+	/**
+	 * @param packed a packed motion
+	 * @return the motion on the y axis, 0 if the motion is empty
+	 */
+	public static float getY(long packed) {
+		return packed == EMPTY ? 0 : Float.intBitsToFloat((int) packed);
+	}
+
+	private static long pack(float x, float y) {
+		return ((long) Float.floatToRawIntBits(x) << 32) | (Float.floatToRawIntBits(y) & 0xFFFFFFFFL);
+	}
+}
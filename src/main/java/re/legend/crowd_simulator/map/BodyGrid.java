@@ -0,0 +1,200 @@
+package re.legend.crowd_simulator.map;
+
+import java.util.Arrays;
+import java.util.List;
+
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+
+/**
+ * Uniform spatial hash grid of the bodies, keyed on {@link Map#CELL_SIZE} cells
+ *
+ * The grid is rebuilt once per simulation step from the {@link BodyStore} with
+ * a counting sort of the slots, so that a rebuild is O(N) and does not allocate
+ * once the internal arrays are large enough. Bodies outside of the map are
+ * clamped to the border cells, queries then filter on the exact positions.
+ */
+public class BodyGrid {
+
+	// Size of a cell
+	private final int cellSize;
+
+	// Number of cells on each axis
+	private final int columns;
+	private final int rows;
+
+	// Index of the first body of each cell in the sorted array (size: cells + 1)
+	private final int[] cellStart;
+
+	// Insertion cursor of each cell, used while rebuilding
+	private final int[] cellCursor;
+
+	// Cell of each slot
+	private int[] bodyCells;
+
+	// Slots sorted by cell
+	private int[] sortedSlots;
+
+	// Store the grid was built from
+	private BodyStore store;
+
+	/**
+	 * Constructor
+	 *
+	 * @param cellSize  the size of a cell
+	 * @param worldSize the size of the (square) area covered by the grid
+	 */
+	public BodyGrid(int cellSize, int worldSize) {
+		this.cellSize = cellSize;
+		this.columns = (worldSize + cellSize - 1) / cellSize;
+		this.rows = this.columns;
+		this.cellStart = new int[this.columns * this.rows + 1];
+		this.cellCursor = new int[this.columns * this.rows];
+		this.bodyCells = new int[0];
+		this.sortedSlots = new int[0];
+	}
+
+	/**
+	 * Rebuilds the grid from the positions of the given store
+	 *
+	 * @param store the bodies to index
+	 */
+	public void rebuild(BodyStore store) {
+		this.store = store;
+		int count = store.size();
+		if (this.sortedSlots.length < count) {
+			this.sortedSlots = new int[count + count / 2];
+			this.bodyCells = new int[this.sortedSlots.length];
+		}
+		float[] x = store.getX();
+		float[] y = store.getY();
+
+		// Counts the bodies of each cell
+		Arrays.fill(this.cellStart, 0);
+		for (int i = 0; i < count; i++) {
+			int cell = cellOf(x[i], y[i]);
+			this.bodyCells[i] = cell;
+			this.cellStart[cell + 1]++;
+		}
+
+		// Prefix sum, cellStart[c] becomes the index of the first body of the cell c
+		for (int c = 0; c < this.cellStart.length - 1; c++) {
+			this.cellStart[c + 1] += this.cellStart[c];
+		}
+
+		// Places the bodies, each cell cursor starting at the first index of its cell
+		System.arraycopy(this.cellStart, 0, this.cellCursor, 0, this.cellCursor.length);
+		for (int i = 0; i < count; i++) {
+			this.sortedSlots[this.cellCursor[this.bodyCells[i]]++] = i;
+		}
+	}
+
+	/**
+	 * Adds to the given list the bodies whose position is inside the given square
+	 * (bounds included)
+	 *
+	 * @param centerX    the x coordinate of the center of the square
+	 * @param centerY    the y coordinate of the center of the square
+	 * @param halfLength half of the side length of the square
+	 * @param exclude    a body to leave out of the result, may be null
+	 * @param result     the list receiving the bodies
+	 */
+	public void query(float centerX, float centerY, float halfLength, AgentBody exclude, List<AgentBody> result) {
+		float minX = centerX - halfLength;
+		float maxX = centerX + halfLength;
+		float minY = centerY - halfLength;
+		float maxY = centerY + halfLength;
+
+		if (this.store == null) {
+			return;
+		}
+		float[] x = this.store.getX();
+		float[] y = this.store.getY();
+
+		int minColumn = column(minX);
+		int maxColumn = column(maxX);
+		int minRow = row(minY);
+		int maxRow = row(maxY);
+
+		for (int r = minRow; r <= maxRow; r++) {
+			for (int c = minColumn; c <= maxColumn; c++) {
+				int cell = r * this.columns + c;
+				for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+					int slot = this.sortedSlots[i];
+					if (x[slot] >= minX && x[slot] <= maxX && y[slot] >= minY && y[slot] <= maxY) {
+						AgentBody b = this.store.getBody(slot);
+						if (b != exclude) {
+							result.add(b);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds to the given list the bodies whose position is inside the given ring
+	 * (outer bound included), only looking at the cells which cross the ring
+	 *
+	 * @param centerX     the x coordinate of the center of the ring
+	 * @param centerY     the y coordinate of the center of the ring
+	 * @param innerRadius the radius inside which the bodies are left out
+	 * @param outerRadius the radius outside which the bodies are left out
+	 * @param result      the list receiving the bodies
+	 */
+	public void queryRing(float centerX, float centerY, float innerRadius, float outerRadius, List<AgentBody> result) {
+		if (this.store == null || outerRadius < 0) {
+			return;
+		}
+		float[] x = this.store.getX();
+		float[] y = this.store.getY();
+		float inner2 = innerRadius > 0 ? innerRadius * innerRadius : -1;
+		float outer2 = outerRadius * outerRadius;
+
+		int minColumn = column(centerX - outerRadius);
+		int maxColumn = column(centerX + outerRadius);
+		int minRow = row(centerY - outerRadius);
+		int maxRow = row(centerY + outerRadius);
+
+		for (int r = minRow; r <= maxRow; r++) {
+			float top = r * this.cellSize;
+			float nearY = Math.max(top - centerY, Math.max(0, centerY - top - this.cellSize));
+			float farY = Math.max(Math.abs(top - centerY), Math.abs(top + this.cellSize - centerY));
+			for (int c = minColumn; c <= maxColumn; c++) {
+				float left = c * this.cellSize;
+				float nearX = Math.max(left - centerX, Math.max(0, centerX - left - this.cellSize));
+				float farX = Math.max(Math.abs(left - centerX), Math.abs(left + this.cellSize - centerX));
+				// The border cells also hold the bodies outside of the map, they are never
+				// left out as covered by the inner disk
+				boolean border = r == 0 || c == 0 || r == this.rows - 1 || c == this.columns - 1;
+				if (nearX * nearX + nearY * nearY > outer2
+						|| (!border && farX * farX + farY * farY <= inner2)) {
+					continue;
+				}
+				int cell = r * this.columns + c;
+				for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+					int slot = this.sortedSlots[i];
+					float dx = x[slot] - centerX;
+					float dy = y[slot] - centerY;
+					float distance2 = dx * dx + dy * dy;
+					if (distance2 > inner2 && distance2 <= outer2) {
+						result.add(this.store.getBody(slot));
+					}
+				}
+			}
+		}
+	}
+
+	private int cellOf(float x, float y) {
+		return row(y) * this.columns + column(x);
+	}
+
+	private int column(float x) {
+		int c = (int) Math.floor(x / this.cellSize);
+		return c < 0 ? 0 : (c >= this.columns ? this.columns - 1 : c);
+	}
+
+	private int row(float y) {
+		int r = (int) Math.floor(y / this.cellSize);
+		return r < 0 ? 0 : (r >= this.rows ? this.rows - 1 : r);
+	}
+}
@@ -0,0 +1,357 @@
+package re.legend.crowd_simulator.map;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.Vector2;
+
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.pathfinding.Path;
+
+/**
+ * Structure-of-arrays storage of the bodies' kinematic state
+ *
+ * Each body owns a dense slot, and its position and velocity are kept in
+ * primitive arrays indexed by that slot, so that the environment passes
+ * (perception, steering, influences) are linear scans over primitive arrays
+ * instead of pointer chasing through the bodies' vectors. A removed body's slot
+ * is filled with the last body, so slots stay dense.
+ *
+ * The store is the reference for the positions: the environment moves the
+ * bodies through it and the bodies' position vectors are written back once the
+ * step is applied, in a single sequential pass rather than from the parallel
+ * workers. The velocities are computed by the agents on their bodies and
+ * pulled into the store once per step.
+ *
+ * The positions are double buffered: while the influences are applied, the new
+ * positions are written to the next buffer and computed from the current one
+ * only, so that the result does not depend on the order in which the slots are
+ * processed. {@link #swapPositions()} then makes the next buffer current, the
+ * other one keeping the positions the bodies had at the beginning of the step
+ * until the next step is applied.
+ *
+ * For the debug view, the store can also keep the steering vectors of each
+ * body, recorded along with the motion they led to, so that they are the ones
+ * of the step whatever the agent does afterwards.
+ */
+public class BodyStore {
+
+	// Offsets of the steering vectors of a slot in the steering array
+	public static final int AHEAD = 0;
+	public static final int AHEAD2 = 2;
+	public static final int AVOIDANCE = 4;
+	public static final int DESIRED_VELOCITY = 6;
+	public static final int TARGET = 8;
+
+	// Number of floats of the steering vectors of a slot
+	public static final int STEERING_STRIDE = 10;
+
+	// Initial capacity of the arrays
+	private static final int INITIAL_CAPACITY = 64;
+
+	// Body of each slot
+	private AgentBody[] bodies;
+
+	// Position of each slot
+	private float[] x;
+	private float[] y;
+
+	// Position of each slot at the end of the step being applied, then at its
+	// beginning once the buffers are swapped
+	private float[] nextX;
+	private float[] nextY;
+
+	// Linear velocity of each slot
+	private float[] vx;
+	private float[] vy;
+
+	// Motion of each slot collected from the influences of the step
+	private float[] motionX;
+	private float[] motionY;
+
+	// Steering vectors of each slot, STEERING_STRIDE floats per slot
+	private float[] steering;
+
+	// Path of each slot, recorded with its steering vectors
+	private Path[] paths;
+
+	// Number of used slots
+	private int size;
+
+	/**
+	 * Default constructor
+	 */
+	public BodyStore() {
+		this.bodies = new AgentBody[INITIAL_CAPACITY];
+		this.x = new float[INITIAL_CAPACITY];
+		this.y = new float[INITIAL_CAPACITY];
+		this.nextX = new float[INITIAL_CAPACITY];
+		this.nextY = new float[INITIAL_CAPACITY];
+		this.vx = new float[INITIAL_CAPACITY];
+		this.vy = new float[INITIAL_CAPACITY];
+		this.motionX = new float[INITIAL_CAPACITY];
+		this.motionY = new float[INITIAL_CAPACITY];
+		this.steering = new float[INITIAL_CAPACITY * STEERING_STRIDE];
+		this.paths = new Path[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Gives a slot to the body
+	 *
+	 * @param body the body to add
+	 */
+	public void add(AgentBody body) {
+		if (this.size == this.bodies.length) {
+			int capacity = this.size * 2;
+			this.bodies = Arrays.copyOf(this.bodies, capacity);
+			this.x = Arrays.copyOf(this.x, capacity);
+			this.y = Arrays.copyOf(this.y, capacity);
+			this.nextX = Arrays.copyOf(this.nextX, capacity);
+			this.nextY = Arrays.copyOf(this.nextY, capacity);
+			this.vx = Arrays.copyOf(this.vx, capacity);
+			this.vy = Arrays.copyOf(this.vy, capacity);
+			this.motionX = Arrays.copyOf(this.motionX, capacity);
+			this.motionY = Arrays.copyOf(this.motionY, capacity);
+			this.steering = Arrays.copyOf(this.steering, capacity * STEERING_STRIDE);
+			this.paths = Arrays.copyOf(this.paths, capacity);
+		}
+		int slot = this.size++;
+		this.bodies[slot] = body;
+		this.x[slot] = body.getPosition().x;
+		this.y[slot] = body.getPosition().y;
+		this.nextX[slot] = this.x[slot];
+		this.nextY[slot] = this.y[slot];
+		this.vx[slot] = body.getLinearVelocity().x;
+		this.vy[slot] = body.getLinearVelocity().y;
+		this.motionX[slot] = 0;
+		this.motionY[slot] = 0;
+		body.setSlot(slot);
+		recordSteering(slot);
+	}
+
+	/**
+	 * Frees the slot of the body, the last body takes its place
+	 *
+	 * @param body the body to remove
+	 */
+	public void remove(AgentBody body) {
+		int slot = body.getSlot();
+		if (slot < 0 || slot >= this.size || this.bodies[slot] != body) {
+			return;
+		}
+		int last = --this.size;
+		if (slot != last) {
+			this.bodies[slot] = this.bodies[last];
+			this.x[slot] = this.x[last];
+			this.y[slot] = this.y[last];
+			this.nextX[slot] = this.nextX[last];
+			this.nextY[slot] = this.nextY[last];
+			this.vx[slot] = this.vx[last];
+			this.vy[slot] = this.vy[last];
+			this.motionX[slot] = this.motionX[last];
+			this.motionY[slot] = this.motionY[last];
+			System.arraycopy(this.steering, last * STEERING_STRIDE, this.steering, slot * STEERING_STRIDE,
+					STEERING_STRIDE);
+			this.paths[slot] = this.paths[last];
+			this.bodies[slot].setSlot(slot);
+		}
+		this.bodies[last] = null;
+		this.paths[last] = null;
+		body.setSlot(-1);
+	}
+
+	/**
+	 * Copies the velocities computed by the agents into the store
+	 */
+	public void pullVelocities() {
+		for (int i = 0; i < this.size; i++) {
+			this.vx[i] = this.bodies[i].getLinearVelocity().x;
+			this.vy[i] = this.bodies[i].getLinearVelocity().y;
+		}
+	}
+
+	/**
+	 * Places the body of the given slot, as if it had been there since the
+	 * beginning of the step
+	 *
+	 * @param slot the slot of the body
+	 * @param x    the position on the x axis
+	 * @param y    the position on the y axis
+	 */
+	public void setPosition(int slot, float x, float y) {
+		this.x[slot] = x;
+		this.y[slot] = y;
+		this.nextX[slot] = x;
+		this.nextY[slot] = y;
+		this.bodies[slot].setPosition(x, y);
+	}
+
+	/**
+	 * Sets the motion the body of the given slot will make during the step
+	 *
+	 * @param slot the slot of the body
+	 * @param dx   the motion on the x axis
+	 * @param dy   the motion on the y axis
+	 */
+	public void setMotion(int slot, float dx, float dy) {
+		this.motionX[slot] = dx;
+		this.motionY[slot] = dy;
+	}
+
+	/**
+	 * Copies the steering vectors of the body of the given slot, to be called
+	 * once the body has submitted its motion for the step
+	 *
+	 * Only the slot's own entries are written, so that slots can be processed
+	 * concurrently.
+	 *
+	 * @param slot the slot of the body
+	 */
+	public void recordSteering(int slot) {
+		AgentBody body = this.bodies[slot];
+		int offset = slot * STEERING_STRIDE;
+		this.steering[offset + AHEAD] = body.getAhead().x;
+		this.steering[offset + AHEAD + 1] = body.getAhead().y;
+		this.steering[offset + AHEAD2] = body.getAhead2().x;
+		this.steering[offset + AHEAD2 + 1] = body.getAhead2().y;
+		this.steering[offset + AVOIDANCE] = body.getAvoidance().x;
+		this.steering[offset + AVOIDANCE + 1] = body.getAvoidance().y;
+		this.steering[offset + DESIRED_VELOCITY] = body.getDesiredVelocity().x;
+		this.steering[offset + DESIRED_VELOCITY + 1] = body.getDesiredVelocity().y;
+		Vector2 target = body.getTarget();
+		this.steering[offset + TARGET] = target == null ? Float.NaN : target.x;
+		this.steering[offset + TARGET + 1] = target == null ? Float.NaN : target.y;
+		// The path is immutable, the reference is enough
+		this.paths[slot] = body.getPath();
+	}
+
+	/**
+	 * Computes the next position of the body of the given slot from its current
+	 * position and its motion
+	 *
+	 * Only the slot's own entries are written, so that slots can be processed
+	 * concurrently.
+	 *
+	 * @param slot the slot of the body
+	 */
+	public void integrate(int slot) {
+		this.nextX[slot] = this.x[slot] + this.motionX[slot];
+		this.nextY[slot] = this.y[slot] + this.motionY[slot];
+		this.motionX[slot] = 0;
+		this.motionY[slot] = 0;
+	}
+
+	/**
+	 * Makes the positions computed by {@link #integrate(int)} the current ones
+	 */
+	public void swapPositions() {
+		float[] swap = this.x;
+		this.x = this.nextX;
+		this.nextX = swap;
+		swap = this.y;
+		this.y = this.nextY;
+		this.nextY = swap;
+	}
+
+	/**
+	 * Writes the current positions back to the bodies, to be called by the
+	 * environment once the positions are swapped
+	 */
+	public void pushPositions() {
+		for (int i = 0; i < this.size; i++) {
+			this.bodies[i].setPosition(this.x[i], this.y[i]);
+		}
+	}
+
+	/**
+	 * @return the number of bodies in the store
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @param slot a slot
+	 * @return the body of the slot
+	 */
+	public AgentBody getBody(int slot) {
+		return this.bodies[slot];
+	}
+
+	/**
+	 * @return the x positions, indexed by slot (only the first size() are used)
+	 */
+	public float[] getX() {
+		return this.x;
+	}
+
+	/**
+	 * @return the y positions, indexed by slot (only the first size() are used)
+	 */
+	public float[] getY() {
+		return this.y;
+	}
+
+	/**
+	 * @return the x positions at the beginning of the last applied step, indexed
+	 *         by slot (only the first size() are used)
+	 */
+	public float[] getPreviousX() {
+		return this.nextX;
+	}
+
+	/**
+	 * @return the y positions at the beginning of the last applied step, indexed
+	 *         by slot (only the first size() are used)
+	 */
+	public float[] getPreviousY() {
+		return this.nextY;
+	}
+
+	/**
+	 * @return the x motions of the step, indexed by slot (only the first size()
+	 *         are used)
+	 */
+	public float[] getMotionX() {
+		return this.motionX;
+	}
+
+	/**
+	 * @return the y motions of the step, indexed by slot (only the first size()
+	 *         are used)
+	 */
+	public float[] getMotionY() {
+		return this.motionY;
+	}
+
+	/**
+	 * @return the x velocities, indexed by slot (only the first size() are used)
+	 */
+	public float[] getVelocityX() {
+		return this.vx;
+	}
+
+	/**
+	 * @return the y velocities, indexed by slot (only the first size() are used)
+	 */
+	public float[] getVelocityY() {
+		return this.vy;
+	}
+
+	/**
+	 * @return the steering vectors recorded by {@link #recordSteering(int)},
+	 *         {@link #STEERING_STRIDE} floats per slot, starting with the target
+	 *         at {@link #TARGET} (NaN if there is none)
+	 */
+	public float[] getSteering() {
+		return this.steering;
+	}
+
+	/**
+	 * @param slot a slot
+	 * @return the path recorded with the steering vectors of the slot, null if
+	 *         there is none
+	 */
+	public Path getPath(int slot) {
+		return this.paths[slot];
+	}
+}
@@ -16,7 +16,9 @@ import re.legend.crowd_simulator.entities.bodies.AgentBody;
 import re.legend.crowd_simulator.entities.gameobjects.Bomb;
 import re.legend.crowd_simulator.entities.gameobjects.Shop;
 import re.legend.crowd_simulator.entities.gameobjects.Wall;
+import re.legend.crowd_simulator.influence.InfluenceLatch;
 import re.legend.crowd_simulator.pathfinding.AStarNode;
+import re.legend.crowd_simulator.pathfinding.Pathfinder;
 
 public class Map {
 
@@ -29,12 +31,33 @@ public class Map {
 	// TreeMap containing the bodies on the map
 	private TreeMap<UUID, AgentBody> bodies;
 
+	// Positions and velocities of the bodies, stored as arrays
+	private BodyStore bodyStore;
+
+	// Spatial grid of the bodies, rebuilt at each simulation step
+	private BodyGrid bodyGrid;
+
+	// Counts the answers of the bodies to the perceptions of a step
+	private final InfluenceLatch influenceLatch = new InfluenceLatch();
+
+	// Number of bodies created since the map was built
+	private int createdBodies;
+
 	// List of walls on the map
 	private List<Wall> walls;
 
+	// Walls indexed by tile, built when the walls are set
+	private WallGrid wallGrid;
+
+	// Distance to the nearest wall, built when the walls are set
+	private WallDistanceField wallDistanceField;
+
 	// List of waypoints on the map
 	private MutableGraph<AStarNode> waypoints;
 
+	// Pathfinder over the waypoints, built when the waypoints are set
+	private Pathfinder pathfinder;
+
 	// List of shops on the map
 	private List<Shop> shops;
 	
@@ -49,7 +72,11 @@ public class Map {
 	 */
 	public Map() {
 		this.bodies = new TreeMap<>();
+		this.bodyStore = new BodyStore();
+		this.bodyGrid = new BodyGrid(CELL_SIZE, MAP_SIZE);
 		this.walls = new ArrayList<>();
+		this.wallGrid = new WallGrid(this.walls, MAP_SIZE);
+		this.wallDistanceField = new WallDistanceField(this.walls, MAP_SIZE);
 		this.shops = new ArrayList<>();
 	}
 
@@ -82,14 +109,26 @@ public class Map {
 		Constructor cons = bodyType.getDeclaredConstructor(float.class, float.class, float.class, UUID.class);
 		Object body = cons.newInstance(x, y, orientation, id);
 
-		// Put the body into the tree map
+		// Put the body into the tree map and give it a slot in the store
 		this.bodies.put(id, (AgentBody) body);
+		this.bodyStore.add((AgentBody) body);
+		((AgentBody) body).setWallDistanceField(this.wallDistanceField);
+		((AgentBody) body).setInfluenceLatch(this.influenceLatch);
+		this.createdBodies++;
 
 		return (T) body;
 	}
 
 	public void setWalls(List<Wall> walls) {
 		this.walls = walls;
+		this.wallGrid = new WallGrid(walls, MAP_SIZE);
+		this.wallDistanceField = new WallDistanceField(walls, MAP_SIZE);
+		for (AgentBody body : this.bodies.values()) {
+			body.setWallDistanceField(this.wallDistanceField);
+		}
+		if (this.pathfinder != null) {
+			this.pathfinder.setWallGrid(this.wallGrid);
+		}
 	}
 
 	public void setShops(List<Shop> shops) {
@@ -100,15 +139,56 @@ public class Map {
 		return this.bodies.values();
 	}
 
+	/**
+	 * @return the number of bodies created since the map was built, including the
+	 *         ones removed since
+	 */
+	public int getCreatedBodies() {
+		return this.createdBodies;
+	}
+
+	/**
+	 * @return the array storage of the bodies
+	 */
+	public BodyStore getBodyStore() {
+		return this.bodyStore;
+	}
+
+	/**
+	 * @return the spatial grid of the bodies, as of the last call to
+	 *         {@link #updateBodyGrid()}
+	 */
+	public BodyGrid getBodyGrid() {
+		return this.bodyGrid;
+	}
+
+	/**
+	 * @return the latch counting the answers of the bodies to the perceptions of
+	 *         a step
+	 */
+	public InfluenceLatch getInfluenceLatch() {
+		return this.influenceLatch;
+	}
+
+	/**
+	 * Rebuilds the spatial grid of the bodies from their current positions
+	 */
+	public void updateBodyGrid() {
+		this.bodyGrid.rebuild(this.bodyStore);
+	}
+
 	public void setBodyAt(AgentBody body, float x, float y) {
-		body.setPosition(x, y);
+		if (body.getSlot() >= 0) {
+			this.bodyStore.setPosition(body.getSlot(), x, y);
+		} else {
+			body.setPosition(x, y);
+		}
 	}
 
 	public SimulationEntity getObjectAt(float x, float y) {
-		for (Wall wall : walls) {
-			if (wall.getPosition().x == x && wall.getPosition().y == y) {
-				return wall;
-			}
+		Wall wall = this.wallGrid.getWallAt(x, y);
+		if (wall != null && wall.getPosition().x == x && wall.getPosition().y == y) {
+			return wall;
 		}
 		return null;
 	}
@@ -116,6 +196,20 @@ public class Map {
 	public List<Wall> getWalls() {
 		return this.walls;
 	}
+
+	/**
+	 * @return the walls indexed by tile
+	 */
+	public WallGrid getWallGrid() {
+		return this.wallGrid;
+	}
+
+	/**
+	 * @return the distance field of the walls
+	 */
+	public WallDistanceField getWallDistanceField() {
+		return this.wallDistanceField;
+	}
 	
 	public List<Shop> getShops() {
 		return this.shops;
@@ -123,12 +217,21 @@ public class Map {
 
 	public void setWaypoints(MutableGraph<AStarNode> waypoints) {
 		this.waypoints = waypoints;
+		this.pathfinder = new Pathfinder(waypoints);
+		this.pathfinder.setWallGrid(this.wallGrid);
 	}
 	
 	public MutableGraph<AStarNode> getWaypoints() {
 		return this.waypoints;
 	}
 
+	/**
+	 * @return the pathfinder over the waypoints
+	 */
+	public Pathfinder getPathfinder() {
+		return this.pathfinder;
+	}
+
 	/**
 	 * @return the bomb
 	 */
@@ -152,6 +255,11 @@ public class Map {
 	}
 	
 	public void removeBody(UUID id) {
-		this.bodies.remove(id);
+		AgentBody body = this.bodies.remove(id);
+		if (body != null) {
+			this.bodyStore.remove(body);
+			// The body won't answer anymore, the environment does not wait for it
+			this.influenceLatch.answer(body.getMotionSlot(), this.influenceLatch.getStep());
+		}
 	}
 }
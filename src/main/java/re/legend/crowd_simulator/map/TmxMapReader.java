@@ -0,0 +1,255 @@
+package re.legend.crowd_simulator.map;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import com.badlogic.gdx.math.Vector2;
+import com.google.common.graph.MutableGraph;
+
+import re.legend.crowd_simulator.entities.gameobjects.Shop;
+import re.legend.crowd_simulator.entities.gameobjects.Wall;
+import re.legend.crowd_simulator.pathfinding.AStarNode;
+import re.legend.crowd_simulator.pathfinding.NavigationCache;
+
+/**
+ * Reads the simulation layers of a Tiled map without any graphic context
+ *
+ * This is used by the headless mode, where there is no OpenGL context to load
+ * the tilesets required by the libGDX TmxMapLoader. Only the layers used by the
+ * simulation are read (Walls, Shops, ShopsEntrances, Exits and Path), and the y
+ * axis is flipped the same way the TmxMapLoader does so that both loaders give
+ * the same coordinates.
+ *
+ * The layers other than the walls are optional: the first map of the project
+ * (map.tmx) only has walls, its shops, exits and waypoints are left empty.
+ */
+public class TmxMapReader {
+
+	// Map height in pixels, used to flip the y axis
+	private float mapHeight;
+
+	// Walls of the map
+	private List<Wall> walls;
+
+	// Shops of the map
+	private List<Shop> shops;
+
+	// Exits of the map
+	private List<Vector2> exits;
+
+	// Waypoints graph of the map
+	private MutableGraph<AStarNode> waypoints;
+
+	/**
+	 * Reads the given map
+	 *
+	 * @param path the path of the .tmx file, either on the file system or on the
+	 *             classpath
+	 * @throws IOException if the map can't be read
+	 */
+	public TmxMapReader(String path) throws IOException {
+		this.walls = new ArrayList<>();
+		this.shops = new ArrayList<>();
+		this.exits = new ArrayList<>();
+
+		// The whole file is read first, its hash identifies the navigation cache
+		File file = new File(path);
+		byte[] content;
+		try (InputStream input = open(path)) {
+			content = readAll(input);
+		}
+
+		Document document;
+		try {
+			document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+					.parse(new ByteArrayInputStream(content));
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new IOException("Unable to parse the map " + path, e);
+		}
+
+		Element root = document.getDocumentElement();
+		this.mapHeight = Integer.parseInt(root.getAttribute("height"))
+				* Integer.parseInt(root.getAttribute("tileheight"));
+
+		readWalls(findElement(root, "layer", "Walls"));
+		readShops(findOptionalElement(root, "objectgroup", "Shops"));
+		readShopsEntrances(findOptionalElement(root, "objectgroup", "ShopsEntrances"));
+		readExits(findOptionalElement(root, "objectgroup", "Exits"));
+		Element waypoints = findOptionalElement(root, "objectgroup", "Path");
+		// Maps read from the classpath have no place to store a cache
+		File cacheFile = file.isFile() ? NavigationCache.getCacheFile(file) : null;
+		this.waypoints = NavigationCache.loadOrBuild(content, cacheFile, readPoints(waypoints));
+	}
+
+	/**
+	 * @return the walls of the map
+	 */
+	public List<Wall> getWalls() {
+		return this.walls;
+	}
+
+	/**
+	 * @return the shops of the map
+	 */
+	public List<Shop> getShops() {
+		return this.shops;
+	}
+
+	/**
+	 * @return the exits of the map
+	 */
+	public List<Vector2> getExits() {
+		return this.exits;
+	}
+
+	/**
+	 * @return the waypoints graph of the map
+	 */
+	public MutableGraph<AStarNode> getWaypoints() {
+		return this.waypoints;
+	}
+
+	private void readWalls(Element layer) {
+		int width = Integer.parseInt(layer.getAttribute("width"));
+		int height = Integer.parseInt(layer.getAttribute("height"));
+		Element data = (Element) layer.getElementsByTagName("data").item(0);
+		if (!"csv".equals(data.getAttribute("encoding"))) {
+			throw new IllegalArgumentException("Only CSV encoded tile layers are supported");
+		}
+		String[] cells = data.getTextContent().trim().split("\\s*,\\s*");
+		for (int row = 0; row < height; row++) {
+			for (int x = 0; x < width; x++) {
+				if (Long.parseLong(cells[row * width + x]) != 0) {
+					// Tiled rows go downwards, the map rows go upwards
+					int y = height - 1 - row;
+					this.walls.add(new Wall(x * Wall.SIZE, y * Wall.SIZE));
+				}
+			}
+		}
+	}
+
+	private void readShops(Element group) {
+		if (group == null) {
+			return;
+		}
+		NodeList objects = group.getElementsByTagName("object");
+		for (int i = 0; i < objects.getLength(); i++) {
+			Element object = (Element) objects.item(i);
+			NodeList polygons = object.getElementsByTagName("polygon");
+			if (polygons.getLength() > 0) {
+				String[] points = ((Element) polygons.item(0)).getAttribute("points").split(" ");
+				float[] areaVertices = new float[points.length * 2];
+				for (int p = 0; p < points.length; p++) {
+					String[] point = points[p].split(",");
+					areaVertices[p * 2] = Float.parseFloat(point[0]);
+					areaVertices[p * 2 + 1] = -Float.parseFloat(point[1]);
+				}
+				this.shops.add(new Shop(object.getAttribute("name"), areaVertices, x(object), y(object)));
+			}
+		}
+	}
+
+	private void readShopsEntrances(Element group) {
+		if (group == null) {
+			return;
+		}
+		NodeList objects = group.getElementsByTagName("object");
+		for (int i = 0; i < objects.getLength(); i++) {
+			Element object = (Element) objects.item(i);
+			for (Shop shop : this.shops) {
+				if (shop.getId().equals(object.getAttribute("name"))) {
+					shop.addEntrance(x(object), y(object));
+				}
+			}
+		}
+	}
+
+	private void readExits(Element group) {
+		if (group == null) {
+			return;
+		}
+		NodeList objects = group.getElementsByTagName("object");
+		for (int i = 0; i < objects.getLength(); i++) {
+			Element object = (Element) objects.item(i);
+			this.exits.add(new Vector2(x(object), y(object)));
+		}
+	}
+
+	private List<Vector2> readPoints(Element group) {
+		List<Vector2> points = new ArrayList<>();
+		if (group == null) {
+			return points;
+		}
+		NodeList objects = group.getElementsByTagName("object");
+		for (int i = 0; i < objects.getLength(); i++) {
+			Element object = (Element) objects.item(i);
+			points.add(new Vector2(x(object), y(object)));
+		}
+		return points;
+	}
+
+	private float x(Element object) {
+		return Float.parseFloat(object.getAttribute("x"));
+	}
+
+	private float y(Element object) {
+		// Objects are anchored on their bottom left corner once flipped
+		float height = object.hasAttribute("height") ? Float.parseFloat(object.getAttribute("height")) : 0;
+		return this.mapHeight - Float.parseFloat(object.getAttribute("y")) - height;
+	}
+
+	private static Element findElement(Element root, String tag, String name) {
+		Element element = findOptionalElement(root, tag, name);
+		if (element == null) {
+			throw new IllegalArgumentException("The map has no " + tag + " named " + name);
+		}
+		return element;
+	}
+
+	private static Element findOptionalElement(Element root, String tag, String name) {
+		NodeList elements = root.getElementsByTagName(tag);
+		for (int i = 0; i < elements.getLength(); i++) {
+			Element element = (Element) elements.item(i);
+			if (name.equals(element.getAttribute("name"))) {
+				return element;
+			}
+		}
+		return null;
+	}
+
+	private static byte[] readAll(InputStream input) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = input.read(buffer)) > 0) {
+			output.write(buffer, 0, read);
+		}
+		return output.toByteArray();
+	}
+
+	private static InputStream open(String path) throws IOException {
+		File file = new File(path);
+		if (file.isFile()) {
+			return new FileInputStream(file);
+		}
+		InputStream resource = TmxMapReader.class.getClassLoader().getResourceAsStream(path);
+		if (resource == null) {
+			throw new IOException("Map not found: " + path);
+		}
+		return resource;
+	}
+}
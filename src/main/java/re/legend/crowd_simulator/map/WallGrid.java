@@ -0,0 +1,99 @@
+package re.legend.crowd_simulator.map;
+
+import java.util.List;
+
+import re.legend.crowd_simulator.entities.gameobjects.Wall;
+
+/**
+ * Immutable index of the walls on the tile grid
+ *
+ * Walls never move once the map is loaded, so they are stored once in a flat
+ * array with one slot per tile. Lookups then cost a single array access, not a
+ * scan of the walls on the map. The bodies avoid the walls through the
+ * {@link WallDistanceField}, built from the same tiles.
+ */
+public class WallGrid {
+
+	// Number of tiles on each axis
+	private final int columns;
+	private final int rows;
+
+	// Wall on each tile (null if there is none), row by row
+	private final Wall[] tiles;
+
+	/**
+	 * Constructor
+	 *
+	 * @param walls   the walls of the map
+	 * @param mapSize the size of the (square) map
+	 */
+	public WallGrid(List<Wall> walls, int mapSize) {
+		this.columns = (mapSize + Wall.SIZE - 1) / Wall.SIZE;
+		this.rows = this.columns;
+		this.tiles = new Wall[this.columns * this.rows];
+		for (Wall wall : walls) {
+			int column = tile(wall.getPosition().x);
+			int row = tile(wall.getPosition().y);
+			if (contains(column, row)) {
+				this.tiles[row * this.columns + column] = wall;
+			}
+		}
+	}
+
+	/**
+	 * @param column the tile column
+	 * @param row    the tile row
+	 * @return the wall on the given tile, null if there is none
+	 */
+	public Wall getWall(int column, int row) {
+		if (!contains(column, row)) {
+			return null;
+		}
+		return this.tiles[row * this.columns + column];
+	}
+
+	/**
+	 * @param x the x coordinate of a point
+	 * @param y the y coordinate of a point
+	 * @return the wall on the tile containing the given point, null if there is
+	 *         none
+	 */
+	public Wall getWallAt(float x, float y) {
+		return getWall(tile(x), tile(y));
+	}
+
+	/**
+	 * @param x the x coordinate of a point
+	 * @param y the y coordinate of a point
+	 * @return true if the tile containing the given point is a wall
+	 */
+	public boolean isWallAt(float x, float y) {
+		return getWallAt(x, y) != null;
+	}
+
+	/**
+	 * @return the number of tile columns
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * @return the number of tile rows
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * @param coordinate a coordinate on the map
+	 * @return the index of the tile containing the coordinate
+	 */
+	public static int tile(float coordinate) {
+		return (int) Math.floor(coordinate / Wall.SIZE);
+	}
+
+	private boolean contains(int column, int row) {
+		return column >= 0 && column < this.columns && row >= 0 && row < this.rows;
+	}
+}
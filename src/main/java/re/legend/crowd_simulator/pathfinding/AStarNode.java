@@ -4,46 +4,22 @@ import com.badlogic.gdx.math.Vector2;
 
 public class AStarNode extends Vector2 {
 
-	// Total cost of the node
-	public float f;
-
-	// Distance between the current node and the start node
-	public float g;
-
-	// Euclidian distance between the current node and the end node (heuristic)
-	public float h;
-
-	// Parent node, useful to find the complete path
-	public AStarNode parent;
+	// Index of the node in the pathfinder built over its graph, the search costs
+	// are stored by the pathfinder per query and indexed by this id
+	public int id;
 
 	public AStarNode() {
 		super();
-		this.parent = null;
+		this.id = -1;
 	}
 
 	public AStarNode(Vector2 vec2) {
 		super(vec2);
-		this.parent = null;
+		this.id = -1;
 	}
 
 	public AStarNode(float x, float y) {
 		super(x, y);
-		this.parent = null;
-	}
-
-	public AStarNode(Vector2 vec2, float f, float g, float h) {
-		super(vec2);
-		this.f = f;
-		this.g = g;
-		this.h = h;
-		this.parent = null;
-	}
-
-	public AStarNode(float x, float y, float f, float g, float h) {
-		super(x, y);
-		this.f = f;
-		this.g = g;
-		this.h = h;
-		this.parent = null;
+		this.id = -1;
 	}
 }
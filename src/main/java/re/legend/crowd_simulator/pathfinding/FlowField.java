@@ -0,0 +1,217 @@
+package re.legend.crowd_simulator.pathfinding;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.badlogic.gdx.math.Vector2;
+
+import re.legend.crowd_simulator.entities.gameobjects.Wall;
+import re.legend.crowd_simulator.map.WallGrid;
+
+/**
+ * Evacuation flow field over the tile grid, leading every tile to its nearest
+ * exit
+ *
+ * The field is computed once, by a single Dijkstra sweep started from all the
+ * exits at once over the tiles that are not walls (8-connected, without
+ * cutting the corners of walls). Each tile then knows its distance to the
+ * nearest exit, that exit, and the point an agent standing on it should head
+ * to: the center of the tile two steps further on the way, or the exit itself
+ * when it is that close. Steering an evacuating agent is a lookup at its tile.
+ *
+ * The field is immutable and can be shared by all the agents.
+ */
+public class FlowField {
+
+	// Cost of a diagonal move, relative to a straight one
+	private static final float DIAGONAL_COST = (float) Math.sqrt(2);
+
+	// Neighbour offsets, straight moves first
+	private static final int[] NEIGHBOUR_COLUMNS = { 1, -1, 0, 0, 1, 1, -1, -1 };
+	private static final int[] NEIGHBOUR_ROWS = { 0, 0, 1, -1, 1, -1, 1, -1 };
+
+	// Number of tiles on each axis
+	private final int columns;
+	private final int rows;
+
+	// Distance from each tile to its nearest exit (infinite if there is no way out)
+	private final float[] distances;
+
+	// Next tile of each tile towards its exit, -1 for the tiles of the exits and
+	// the tiles without a way out
+	private final int[] nextTiles;
+
+	// Nearest exit of each tile, null if there is no way out
+	private final Vector2[] exits;
+
+	// Point to head to from each tile, null if there is no way out
+	private final Vector2[] targets;
+
+	/**
+	 * Computes the field
+	 *
+	 * @param walls the walls of the map
+	 * @param exits the exits of the map
+	 */
+	public FlowField(WallGrid walls, List<Vector2> exits) {
+		this.columns = walls.getColumns();
+		this.rows = walls.getRows();
+		int size = this.columns * this.rows;
+		this.distances = new float[size];
+		this.nextTiles = new int[size];
+		this.exits = new Vector2[size];
+		this.targets = new Vector2[size];
+		Arrays.fill(this.distances, Float.POSITIVE_INFINITY);
+		Arrays.fill(this.nextTiles, -1);
+
+		// Open tiles, keyed on their distance (a positive float keeps its order
+		// when its bits are compared as an integer)
+		PriorityQueue<Long> open = new PriorityQueue<>();
+		for (Vector2 exit : exits) {
+			int column = clamp(WallGrid.tile(exit.x), this.columns);
+			int row = clamp(WallGrid.tile(exit.y), this.rows);
+			int tile = row * this.columns + column;
+			float distance = Vector2.dst(exit.x, exit.y, center(column), center(row));
+			if (distance < this.distances[tile]) {
+				this.distances[tile] = distance;
+				this.exits[tile] = exit;
+				open.add(key(distance, tile));
+			}
+		}
+
+		while (!open.isEmpty()) {
+			long key = open.poll();
+			int tile = (int) key;
+			if (Float.intBitsToFloat((int) (key >>> 32)) > this.distances[tile]) {
+				// Outdated entry, the tile was reached by a shorter way since
+				continue;
+			}
+			int column = tile % this.columns;
+			int row = tile / this.columns;
+			for (int n = 0; n < NEIGHBOUR_COLUMNS.length; n++) {
+				int neighbourColumn = column + NEIGHBOUR_COLUMNS[n];
+				int neighbourRow = row + NEIGHBOUR_ROWS[n];
+				if (!isFree(walls, neighbourColumn, neighbourRow)) {
+					continue;
+				}
+				boolean diagonal = n >= 4;
+				if (diagonal && (!isFree(walls, neighbourColumn, row) || !isFree(walls, column, neighbourRow))) {
+					continue;
+				}
+				int neighbour = neighbourRow * this.columns + neighbourColumn;
+				float distance = this.distances[tile] + (diagonal ? DIAGONAL_COST : 1) * Wall.SIZE;
+				if (distance < this.distances[neighbour]) {
+					this.distances[neighbour] = distance;
+					this.nextTiles[neighbour] = tile;
+					this.exits[neighbour] = this.exits[tile];
+					open.add(key(distance, neighbour));
+				}
+			}
+		}
+
+		for (int tile = 0; tile < size; tile++) {
+			this.targets[tile] = computeTarget(tile);
+		}
+		// Agents pushed onto a wall or a closed tile follow their best neighbour
+		for (int tile = 0; tile < size; tile++) {
+			if (this.exits[tile] == null) {
+				adoptBestNeighbour(tile);
+			}
+		}
+	}
+
+	/**
+	 * @param x the x coordinate of a point
+	 * @param y the y coordinate of a point
+	 * @return the point to head to from the given point to reach the nearest
+	 *         exit, null if there is no way out from there
+	 */
+	public Vector2 getTarget(float x, float y) {
+		int tile = tileAt(x, y);
+		return tile < 0 ? null : this.targets[tile];
+	}
+
+	/**
+	 * @param x the x coordinate of a point
+	 * @param y the y coordinate of a point
+	 * @return the exit the field leads to from the given point, null if there is
+	 *         no way out from there
+	 */
+	public Vector2 getExit(float x, float y) {
+		int tile = tileAt(x, y);
+		return tile < 0 ? null : this.exits[tile];
+	}
+
+	/**
+	 * @param x the x coordinate of a point
+	 * @param y the y coordinate of a point
+	 * @return the walking distance from the given point to its nearest exit,
+	 *         infinite if there is no way out from there
+	 */
+	public float getDistance(float x, float y) {
+		int tile = tileAt(x, y);
+		return tile < 0 ? Float.POSITIVE_INFINITY : this.distances[tile];
+	}
+
+	private Vector2 computeTarget(int tile) {
+		if (this.exits[tile] == null) {
+			return null;
+		}
+		int next = this.nextTiles[tile];
+		if (next < 0 || this.nextTiles[next] < 0) {
+			return this.exits[tile];
+		}
+		int afterNext = this.nextTiles[next];
+		return new Vector2(center(afterNext % this.columns), center(afterNext / this.columns));
+	}
+
+	private void adoptBestNeighbour(int tile) {
+		int column = tile % this.columns;
+		int row = tile / this.columns;
+		int best = -1;
+		for (int n = 0; n < NEIGHBOUR_COLUMNS.length; n++) {
+			int neighbourColumn = column + NEIGHBOUR_COLUMNS[n];
+			int neighbourRow = row + NEIGHBOUR_ROWS[n];
+			if (neighbourColumn < 0 || neighbourColumn >= this.columns || neighbourRow < 0
+					|| neighbourRow >= this.rows) {
+				continue;
+			}
+			int neighbour = neighbourRow * this.columns + neighbourColumn;
+			if (this.distances[neighbour] < Float.POSITIVE_INFINITY
+					&& (best < 0 || this.distances[neighbour] < this.distances[best])) {
+				best = neighbour;
+			}
+		}
+		if (best >= 0) {
+			this.exits[tile] = this.exits[best];
+			this.targets[tile] = new Vector2(center(best % this.columns), center(best / this.columns));
+		}
+	}
+
+	private int tileAt(float x, float y) {
+		int column = WallGrid.tile(x);
+		int row = WallGrid.tile(y);
+		if (column < 0 || column >= this.columns || row < 0 || row >= this.rows) {
+			return -1;
+		}
+		return row * this.columns + column;
+	}
+
+	private boolean isFree(WallGrid walls, int column, int row) {
+		return column >= 0 && column < this.columns && row >= 0 && row < this.rows
+				&& walls.getWall(column, row) == null;
+	}
+
+	private static float center(int tile) {
+		return (tile + 0.5f) * Wall.SIZE;
+	}
+
+	private static int clamp(int tile, int size) {
+		return Math.max(0, Math.min(size - 1, tile));
+	}
+
+	private static long key(float distance, int tile) {
+		return ((long) Float.floatToIntBits(distance) << 32) | tile;
+	}
+}
@@ -0,0 +1,164 @@
+package re.legend.crowd_simulator.pathfinding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.math.Vector2;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+
+/**
+ * Binary cache of the waypoints graph of a map, stored next to the .tmx file
+ *
+ * The file holds the SHA-1 of the map it was built from, the link distance, the
+ * positions of the nodes and the edges as pairs of node indexes. It is only
+ * used if the hash and the link distance match, any change to the map
+ * invalidates it and the graph is then rebuilt and the cache rewritten. The
+ * cache is an optimization only: a missing, stale, corrupted or unwritable
+ * cache just falls back to building the graph.
+ */
+public class NavigationCache {
+
+	// Extension added to the name of the map to get the name of its cache
+	public static final String EXTENSION = ".nav";
+
+	// Identifies the cache files, and their format version
+	private static final int MAGIC = 0x4E415631;
+
+	private NavigationCache() {
+	}
+
+	/**
+	 * @param mapFile the .tmx file of a map
+	 * @return the file of the cache of the map
+	 */
+	public static File getCacheFile(File mapFile) {
+		return new File(mapFile.getPath() + EXTENSION);
+	}
+
+	/**
+	 * Reads the waypoints graph from the cache if it is up to date, builds it and
+	 * updates the cache otherwise
+	 *
+	 * @param mapContent the content of the .tmx file
+	 * @param cacheFile  the file of the cache, null to never use a cache
+	 * @param positions  the positions of the waypoints read from the map
+	 * @return the waypoints graph
+	 */
+	public static MutableGraph<AStarNode> loadOrBuild(byte[] mapContent, File cacheFile,
+			List<? extends Vector2> positions) {
+		if (cacheFile == null) {
+			return WaypointGraphBuilder.build(positions);
+		}
+		byte[] hash = hash(mapContent);
+		MutableGraph<AStarNode> graph = read(cacheFile, hash);
+		if (graph == null) {
+			graph = WaypointGraphBuilder.build(positions);
+			write(cacheFile, hash, graph);
+		}
+		return graph;
+	}
+
+	/**
+	 * @param cacheFile the file of the cache
+	 * @param hash      the hash of the map
+	 * @return the graph stored in the cache, null if the cache is missing, stale
+	 *         or unreadable
+	 */
+	public static MutableGraph<AStarNode> read(File cacheFile, byte[] hash) {
+		if (!cacheFile.isFile()) {
+			return null;
+		}
+		try (DataInputStream input = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(cacheFile)))) {
+			if (input.readInt() != MAGIC) {
+				return null;
+			}
+			byte[] cachedHash = new byte[input.readUnsignedByte()];
+			input.readFully(cachedHash);
+			if (!Arrays.equals(cachedHash, hash) || input.readFloat() != WaypointGraphBuilder.LINK_DISTANCE) {
+				return null;
+			}
+
+			int nodeCount = input.readInt();
+			List<AStarNode> nodes = new ArrayList<>(nodeCount);
+			MutableGraph<AStarNode> graph = GraphBuilder.undirected().expectedNodeCount(nodeCount).build();
+			for (int i = 0; i < nodeCount; i++) {
+				AStarNode node = new AStarNode(input.readFloat(), input.readFloat());
+				nodes.add(node);
+				graph.addNode(node);
+			}
+			int edgeCount = input.readInt();
+			for (int i = 0; i < edgeCount; i++) {
+				graph.putEdge(nodes.get(input.readInt()), nodes.get(input.readInt()));
+			}
+			return graph;
+		} catch (IOException | RuntimeException e) {
+			// Corrupted cache, the graph is rebuilt
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the graph to the cache, failures are ignored
+	 *
+	 * @param cacheFile the file of the cache
+	 * @param hash      the hash of the map
+	 * @param graph     the waypoints graph
+	 */
+	public static void write(File cacheFile, byte[] hash, MutableGraph<AStarNode> graph) {
+		List<AStarNode> nodes = new ArrayList<>(graph.nodes());
+		Map<AStarNode, Integer> indexes = new IdentityHashMap<>();
+		for (int i = 0; i < nodes.size(); i++) {
+			indexes.put(nodes.get(i), i);
+		}
+		try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+			output.writeInt(MAGIC);
+			output.writeByte(hash.length);
+			output.write(hash);
+			output.writeFloat(WaypointGraphBuilder.LINK_DISTANCE);
+			output.writeInt(nodes.size());
+			for (AStarNode node : nodes) {
+				output.writeFloat(node.x);
+				output.writeFloat(node.y);
+			}
+			output.writeInt(graph.edges().size());
+			for (EndpointPair<AStarNode> edge : graph.edges()) {
+				output.writeInt(indexes.get(edge.nodeU()));
+				output.writeInt(indexes.get(edge.nodeV()));
+			}
+		} catch (IOException e) {
+			// The cache can't be written (read-only location), it will be rebuilt next
+			// time
+			cacheFile.delete();
+		}
+	}
+
+	/**
+	 * @param mapContent the content of a map file
+	 * @return the SHA-1 of the content
+	 */
+	public static byte[] hash(byte[] mapContent) {
+		try {
+			return MessageDigest.getInstance("SHA-1").digest(mapContent);
+		} catch (NoSuchAlgorithmException e) {
+			// Every JVM provides SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -1,60 +1,77 @@
 package re.legend.crowd_simulator.pathfinding;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import com.badlogic.gdx.math.Vector2;
 
 /**
  * This simple class represents a path made of nodes that an agent can follow
+ *
+ * A path is immutable, its nodes are stored in an array sized to the path.
  */
 public class Path {
-	
-	// List of nodes of the path
-	private List<Vector2> nodes;
-	
+
+	// Nodes of the path
+	private final Vector2[] nodes;
+
 	/**
 	 * Default constructor (empty path)
 	 */
 	public Path() {
-		this.nodes = new ArrayList<>();
+		this.nodes = new Vector2[0];
 	}
-	
+
 	/**
 	 * Constructor with existing nodes
 	 * @param nodes the nodes of the path
 	 */
 	public Path(List<Vector2> nodes) {
-		this.nodes = nodes;
+		this.nodes = nodes.toArray(new Vector2[0]);
 	}
-	
+
 	/**
-	 * Add a node to the path
-	 * @param node the node to add to the path
+	 * Constructor with existing nodes, the array is not copied
+	 * @param nodes the nodes of the path
 	 */
-	public void addNode(Vector2 node) {
-		this.nodes.add(node);
+	public Path(Vector2[] nodes) {
+		this.nodes = nodes;
 	}
-	
+
 	/**
-	 * @return the nodes of the path
+	 * @return the nodes of the path, as a read-only view
 	 */
 	public List<Vector2> getNodes() {
-		return this.nodes;
+		return Collections.unmodifiableList(Arrays.asList(this.nodes));
 	}
-	
+
 	/**
 	 * @param node the node number on the path
 	 * @return the node (vector2) at the given position on the path
 	 */
 	public Vector2 getNode(int node) {
-		return this.nodes.get(node);
+		return this.nodes[node];
 	}
-	
+
+	/**
+	 * @return the last node of the path
+	 */
+	public Vector2 getLastNode() {
+		return this.nodes[this.nodes.length - 1];
+	}
+
 	/**
 	 * @return the number of nodes in the path
 	 */
 	public int length() {
-		return this.nodes.size();
+		return this.nodes.length;
+	}
+
+	/**
+	 * @return true if the path has no node
+	 */
+	public boolean isEmpty() {
+		return this.nodes.length == 0;
 	}
 }
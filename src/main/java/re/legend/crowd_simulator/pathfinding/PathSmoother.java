@@ -0,0 +1,161 @@
+package re.legend.crowd_simulator.pathfinding;
+
+import com.badlogic.gdx.math.Vector2;
+
+import re.legend.crowd_simulator.entities.gameobjects.Wall;
+import re.legend.crowd_simulator.map.WallGrid;
+
+/**
+ * Post-processing of the paths found over the waypoints graph, done once when a
+ * path is planned
+ *
+ * The nodes closer than {@link #DUPLICATE_DISTANCE} to an earlier node are
+ * removed, along with the loop between them. The path is then pulled tight: a
+ * node is skipped when the previous kept node sees the next one, that is when a
+ * corridor as wide as {@link #CLEARANCE} on each side of the segment between
+ * them crosses no wall tile. The line of sight is tested by walking the tiles
+ * crossed by the segment, so its cost is the length of the segment in tiles.
+ *
+ * The smoother is immutable and can be shared by all the threads.
+ */
+public class PathSmoother {
+
+	// Distance under which two nodes are the same
+	public static final float DUPLICATE_DISTANCE = 1f;
+
+	// Free space kept on each side of a smoothed segment, so the agents don't
+	// brush the corners of the walls
+	public static final float CLEARANCE = 4f;
+
+	// Walls of the map
+	private final WallGrid walls;
+
+	/**
+	 * Constructor
+	 *
+	 * @param walls the walls of the map
+	 */
+	public PathSmoother(WallGrid walls) {
+		this.walls = walls;
+	}
+
+	/**
+	 * Removes the duplicated nodes of a path, in place
+	 *
+	 * @param nodes the nodes of the path
+	 * @param count the number of nodes of the path
+	 * @return the new number of nodes
+	 */
+	public static int removeDuplicates(Vector2[] nodes, int count) {
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			Vector2 node = nodes[i];
+			int duplicate = -1;
+			for (int j = 0; j < kept; j++) {
+				if (Math.abs(nodes[j].x - node.x) <= DUPLICATE_DISTANCE
+						&& Math.abs(nodes[j].y - node.y) <= DUPLICATE_DISTANCE) {
+					duplicate = j;
+					break;
+				}
+			}
+			if (duplicate >= 0) {
+				// The path came back to a node, the loop is cut
+				kept = duplicate + 1;
+			} else {
+				nodes[kept++] = node;
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * Removes the duplicated nodes of a path and the nodes that can be skipped, in
+	 * place
+	 *
+	 * @param startX the x coordinate of the point the path is followed from
+	 * @param startY the y coordinate of the point the path is followed from
+	 * @param nodes  the nodes of the path
+	 * @param count  the number of nodes of the path
+	 * @return the new number of nodes
+	 */
+	public int smooth(float startX, float startY, Vector2[] nodes, int count) {
+		count = removeDuplicates(nodes, count);
+		if (count < 2) {
+			return count;
+		}
+
+		// Leading nodes already in sight of the start point are skipped, the last
+		// node is always kept
+		int first = 0;
+		while (first < count - 1 && isClear(startX, startY, nodes[first + 1].x, nodes[first + 1].y)) {
+			first++;
+		}
+
+		int kept = 0;
+		nodes[kept++] = nodes[first];
+		for (int i = first + 1; i < count; i++) {
+			Vector2 anchor = nodes[kept - 1];
+			if (i + 1 < count && isClear(anchor.x, anchor.y, nodes[i + 1].x, nodes[i + 1].y)) {
+				continue;
+			}
+			nodes[kept++] = nodes[i];
+		}
+		return kept;
+	}
+
+	/**
+	 * @param x0 the x coordinate of the first end of a segment
+	 * @param y0 the y coordinate of the first end of a segment
+	 * @param x1 the x coordinate of the second end of a segment
+	 * @param y1 the y coordinate of the second end of a segment
+	 * @return true if the segment and its clearance cross no wall
+	 */
+	public boolean isClear(float x0, float y0, float x1, float y1) {
+		float length = Vector2.dst(x0, y0, x1, y1);
+		if (length == 0) {
+			return !this.walls.isWallAt(x0, y0);
+		}
+		float offsetX = -(y1 - y0) / length * CLEARANCE;
+		float offsetY = (x1 - x0) / length * CLEARANCE;
+		return isLineClear(x0, y0, x1, y1) && isLineClear(x0 + offsetX, y0 + offsetY, x1 + offsetX, y1 + offsetY)
+				&& isLineClear(x0 - offsetX, y0 - offsetY, x1 - offsetX, y1 - offsetY);
+	}
+
+	/**
+	 * Walks the tiles crossed by a segment, one tile border at a time
+	 */
+	private boolean isLineClear(float x0, float y0, float x1, float y1) {
+		int column = WallGrid.tile(x0);
+		int row = WallGrid.tile(y0);
+		int lastColumn = WallGrid.tile(x1);
+		int lastRow = WallGrid.tile(y1);
+		float dx = x1 - x0;
+		float dy = y1 - y0;
+		int stepColumn = dx > 0 ? 1 : -1;
+		int stepRow = dy > 0 ? 1 : -1;
+
+		// Fraction of the segment to walk to cross one tile, and to reach the next
+		// tile border, on each axis
+		float deltaX = dx == 0 ? Float.POSITIVE_INFINITY : Wall.SIZE / Math.abs(dx);
+		float deltaY = dy == 0 ? Float.POSITIVE_INFINITY : Wall.SIZE / Math.abs(dy);
+		float nextX = dx == 0 ? Float.POSITIVE_INFINITY
+				: ((dx > 0 ? column + 1 : column) * Wall.SIZE - x0) / dx;
+		float nextY = dy == 0 ? Float.POSITIVE_INFINITY
+				: ((dy > 0 ? row + 1 : row) * Wall.SIZE - y0) / dy;
+
+		int tiles = Math.abs(lastColumn - column) + Math.abs(lastRow - row);
+		for (int i = 0; i <= tiles; i++) {
+			if (this.walls.getWall(column, row) != null) {
+				return false;
+			}
+			if (nextX < nextY) {
+				column += stepColumn;
+				nextX += deltaX;
+			} else {
+				row += stepRow;
+				nextY += deltaY;
+			}
+		}
+		return true;
+	}
+}
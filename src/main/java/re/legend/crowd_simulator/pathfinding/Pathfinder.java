@@ -0,0 +1,415 @@
+package re.legend.crowd_simulator.pathfinding;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+import com.badlogic.gdx.math.Vector2;
+import com.google.common.graph.Graph;
+
+import re.legend.crowd_simulator.map.WallGrid;
+
+/**
+ * A* over a static waypoints graph, safe to use from any number of agents at
+ * once
+ *
+ * The graph is copied into arrays when the pathfinder is built: each node gets
+ * an id (stored in {@link AStarNode#id}) and its neighbours are stored as a
+ * contiguous range of an edge array. The nodes themselves are never written by
+ * a search, the costs, parents and open list of a query are kept in arrays
+ * indexed by node id, owned by the calling thread and reused from one query to
+ * the next.
+ *
+ * As the graph never changes, the next hop from every node to every other node
+ * is also precomputed, with one Dijkstra per node run in parallel, as long as
+ * the graph has at most {@link #MAX_ROUTED_NODES} nodes. A path is then read
+ * from that routing table without any search.
+ *
+ * Once the walls are known, the paths are post-processed by a
+ * {@link PathSmoother} as they are planned, so following a path is only a
+ * matter of moving to its next node.
+ */
+public class Pathfinder {
+
+	// Maximum number of nodes for which the routing table is computed (the table
+	// has a short per pair of nodes)
+	public static final int MAX_ROUTED_NODES = 4096;
+
+	// Nodes of the graph, indexed by id
+	private final AStarNode[] nodes;
+
+	// Index of the first edge of each node in the edge arrays (size: nodes + 1)
+	private final int[] edgeStart;
+
+	// Target node and length of each edge
+	private final int[] edgeTarget;
+	private final float[] edgeLength;
+
+	// Nodes bucketed by cell, for the nearest node lookups
+	private final WaypointGrid nodeGrid;
+
+	// Search state of each thread
+	private final ThreadLocal<SearchState> searchStates;
+
+	// Next node from each node towards each target, target by target (index:
+	// target * nodes + node, -1 if the target is unreachable), null if the graph
+	// is too large
+	private final short[] nextHops;
+
+	// Post-processing of the paths, null until the walls are known
+	private volatile PathSmoother smoother;
+
+	/**
+	 * Builds the pathfinder over the given graph, which must not change
+	 * afterwards
+	 *
+	 * @param graph the waypoints graph
+	 */
+	public Pathfinder(Graph<AStarNode> graph) {
+		this.nodes = graph.nodes().toArray(new AStarNode[0]);
+		for (int i = 0; i < this.nodes.length; i++) {
+			this.nodes[i].id = i;
+		}
+		this.nodeGrid = new WaypointGrid(Arrays.asList(this.nodes), WaypointGrid.DEFAULT_CELL_SIZE);
+
+		this.edgeStart = new int[this.nodes.length + 1];
+		for (int i = 0; i < this.nodes.length; i++) {
+			this.edgeStart[i + 1] = this.edgeStart[i] + graph.adjacentNodes(this.nodes[i]).size();
+		}
+		this.edgeTarget = new int[this.edgeStart[this.nodes.length]];
+		this.edgeLength = new float[this.edgeTarget.length];
+		for (int i = 0; i < this.nodes.length; i++) {
+			int edge = this.edgeStart[i];
+			for (AStarNode neighbour : graph.adjacentNodes(this.nodes[i])) {
+				this.edgeTarget[edge] = neighbour.id;
+				this.edgeLength[edge] = this.nodes[i].dst(neighbour);
+				edge++;
+			}
+		}
+
+		int size = this.nodes.length;
+		this.searchStates = ThreadLocal.withInitial(() -> new SearchState(size));
+
+		if (size <= MAX_ROUTED_NODES) {
+			this.nextHops = new short[size * size];
+			IntStream.range(0, size).parallel().forEach(this::computeNextHops);
+		} else {
+			this.nextHops = null;
+		}
+	}
+
+	/**
+	 * @param walls the walls of the map, the paths are smoothed against them
+	 */
+	public void setWallGrid(WallGrid walls) {
+		this.smoother = walls == null ? null : new PathSmoother(walls);
+	}
+
+	/**
+	 * @return true if the paths are read from the precomputed routing table
+	 */
+	public boolean hasRoutingTable() {
+		return this.nextHops != null;
+	}
+
+	/**
+	 * @return the number of nodes of the graph
+	 */
+	public int size() {
+		return this.nodes.length;
+	}
+
+	/**
+	 * @param id the id of a node
+	 * @return the node with the given id
+	 */
+	public AStarNode getNode(int id) {
+		return this.nodes[id];
+	}
+
+	/**
+	 * @param x the x coordinate of a point
+	 * @param y the y coordinate of a point
+	 * @return the node nearest to the given point, null if the graph is empty
+	 */
+	public AStarNode findNearestNode(float x, float y) {
+		int nearest = this.nodeGrid.findNearest(x, y);
+		return nearest < 0 ? null : this.nodes[nearest];
+	}
+
+	/**
+	 * Finds the shortest path between the nodes nearest to the given points
+	 *
+	 * @param from the start point
+	 * @param to   the point to reach
+	 * @return the path, from the node nearest to the start (or the first node in
+	 *         sight of the start once smoothed) to the node nearest to the point to
+	 *         reach, null if there is none
+	 */
+	public Path findPath(Vector2 from, Vector2 to) {
+		if (this.nodes.length == 0) {
+			return null;
+		}
+		return findPath(from.x, from.y, findNearestNode(from.x, from.y), findNearestNode(to.x, to.y));
+	}
+
+	/**
+	 * Finds the shortest path between two nodes of the graph
+	 *
+	 * @param start the start node
+	 * @param goal  the node to reach
+	 * @return the path from the start node to the goal node, null if there is none
+	 */
+	public Path findPath(AStarNode start, AStarNode goal) {
+		return findPath(start.x, start.y, start, goal);
+	}
+
+	private Path findPath(float x, float y, AStarNode start, AStarNode goal) {
+		Vector2[] path = this.nextHops != null ? readPath(start.id, goal.id) : search(start, goal);
+		return path == null ? null : postProcess(x, y, path);
+	}
+
+	/**
+	 * Removes the duplicated nodes and, when the walls are known, smooths the path
+	 */
+	private Path postProcess(float x, float y, Vector2[] path) {
+		PathSmoother smoother = this.smoother;
+		int length = smoother == null ? PathSmoother.removeDuplicates(path, path.length)
+				: smoother.smooth(x, y, path, path.length);
+		return new Path(length == path.length ? path : Arrays.copyOf(path, length));
+	}
+
+	/**
+	 * Finds the shortest path between two nodes of the graph with an A* search,
+	 * without the routing table nor any post-processing
+	 *
+	 * @param start the start node
+	 * @param goal  the node to reach
+	 * @return the path from the start node to the goal node, null if there is none
+	 */
+	public Path searchPath(AStarNode start, AStarNode goal) {
+		Vector2[] path = search(start, goal);
+		return path == null ? null : new Path(path);
+	}
+
+	private Vector2[] search(AStarNode start, AStarNode goal) {
+		SearchState state = this.searchStates.get();
+		state.reset();
+
+		state.g[start.id] = 0;
+		state.parent[start.id] = -1;
+		state.push(start.id, start.dst(goal));
+
+		while (!state.isEmpty()) {
+			int current = state.pop();
+			if (current == goal.id) {
+				return buildPath(state, current);
+			}
+			state.closed.set(current);
+
+			for (int edge = this.edgeStart[current]; edge < this.edgeStart[current + 1]; edge++) {
+				int successor = this.edgeTarget[edge];
+				if (state.closed.get(successor)) {
+					continue;
+				}
+				float g = state.g[current] + this.edgeLength[edge];
+				if (g < state.g[successor]) {
+					state.g[successor] = g;
+					state.parent[successor] = current;
+					float f = g + this.nodes[successor].dst(goal);
+					if (state.contains(successor)) {
+						state.decrease(successor, f);
+					} else {
+						state.push(successor, f);
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private Vector2[] readPath(int start, int goal) {
+		int offset = goal * this.nodes.length;
+		if (start != goal && this.nextHops[offset + start] < 0) {
+			return null;
+		}
+		int length = 1;
+		for (int node = start; node != goal; node = this.nextHops[offset + node]) {
+			length++;
+		}
+		Vector2[] path = new Vector2[length];
+		int index = 0;
+		for (int node = start; node != goal; node = this.nextHops[offset + node]) {
+			path[index++] = this.nodes[node];
+		}
+		path[index] = this.nodes[goal];
+		return path;
+	}
+
+	/**
+	 * Dijkstra from the given target, the parent of each node on the shortest path
+	 * tree is its next hop towards the target (the graph is undirected)
+	 *
+	 * @param target the id of the target
+	 */
+	private void computeNextHops(int target) {
+		SearchState state = this.searchStates.get();
+		state.reset();
+		int offset = target * this.nodes.length;
+		Arrays.fill(this.nextHops, offset, offset + this.nodes.length, (short) -1);
+
+		state.g[target] = 0;
+		state.push(target, 0);
+		while (!state.isEmpty()) {
+			int current = state.pop();
+			state.closed.set(current);
+			for (int edge = this.edgeStart[current]; edge < this.edgeStart[current + 1]; edge++) {
+				int successor = this.edgeTarget[edge];
+				if (state.closed.get(successor)) {
+					continue;
+				}
+				float g = state.g[current] + this.edgeLength[edge];
+				if (g < state.g[successor]) {
+					state.g[successor] = g;
+					this.nextHops[offset + successor] = (short) current;
+					if (state.contains(successor)) {
+						state.decrease(successor, g);
+					} else {
+						state.push(successor, g);
+					}
+				}
+			}
+		}
+	}
+
+	private Vector2[] buildPath(SearchState state, int goal) {
+		int length = 0;
+		for (int node = goal; node >= 0; node = state.parent[node]) {
+			length++;
+		}
+		Vector2[] path = new Vector2[length];
+		for (int node = goal; node >= 0; node = state.parent[node]) {
+			path[--length] = this.nodes[node];
+		}
+		return path;
+	}
+
+	/**
+	 * Costs, parents, closed set and open list (an indexed binary heap keyed on f)
+	 * of a search
+	 */
+	private static class SearchState {
+
+		// Cost from the start of each node
+		final float[] g;
+
+		// Parent of each node on the best known path
+		final int[] parent;
+
+		// Nodes already expanded
+		final BitSet closed;
+
+		// Open nodes, ordered as a binary heap on their f cost
+		final int[] heap;
+		final float[] heapCost;
+
+		// Position of each node in the heap, -1 if it is not open
+		final int[] heapPosition;
+
+		// Number of open nodes
+		int heapSize;
+
+		SearchState(int size) {
+			this.g = new float[size];
+			this.parent = new int[size];
+			this.closed = new BitSet(size);
+			this.heap = new int[size];
+			this.heapCost = new float[size];
+			this.heapPosition = new int[size];
+		}
+
+		void reset() {
+			Arrays.fill(this.g, Float.POSITIVE_INFINITY);
+			Arrays.fill(this.heapPosition, -1);
+			this.closed.clear();
+			this.heapSize = 0;
+		}
+
+		boolean isEmpty() {
+			return this.heapSize == 0;
+		}
+
+		boolean contains(int node) {
+			return this.heapPosition[node] >= 0;
+		}
+
+		void push(int node, float cost) {
+			int position = this.heapSize++;
+			this.heap[position] = node;
+			this.heapCost[position] = cost;
+			this.heapPosition[node] = position;
+			siftUp(position);
+		}
+
+		void decrease(int node, float cost) {
+			int position = this.heapPosition[node];
+			this.heapCost[position] = cost;
+			siftUp(position);
+		}
+
+		int pop() {
+			int node = this.heap[0];
+			this.heapPosition[node] = -1;
+			this.heapSize--;
+			if (this.heapSize > 0) {
+				move(this.heapSize, 0);
+				siftDown(0);
+			}
+			return node;
+		}
+
+		private void siftUp(int position) {
+			int node = this.heap[position];
+			float cost = this.heapCost[position];
+			while (position > 0) {
+				int parentPosition = (position - 1) >>> 1;
+				if (this.heapCost[parentPosition] <= cost) {
+					break;
+				}
+				move(parentPosition, position);
+				position = parentPosition;
+			}
+			place(node, cost, position);
+		}
+
+		private void siftDown(int position) {
+			int node = this.heap[position];
+			float cost = this.heapCost[position];
+			while (true) {
+				int child = 2 * position + 1;
+				if (child >= this.heapSize) {
+					break;
+				}
+				if (child + 1 < this.heapSize && this.heapCost[child + 1] < this.heapCost[child]) {
+					child++;
+				}
+				if (this.heapCost[child] >= cost) {
+					break;
+				}
+				move(child, position);
+				position = child;
+			}
+			place(node, cost, position);
+		}
+
+		private void move(int from, int to) {
+			place(this.heap[from], this.heapCost[from], to);
+		}
+
+		private void place(int node, float cost, int position) {
+			this.heap[position] = node;
+			this.heapCost[position] = cost;
+			this.heapPosition[node] = position;
+		}
+	}
+}
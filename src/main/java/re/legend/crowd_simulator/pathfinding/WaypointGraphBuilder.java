@@ -0,0 +1,55 @@
+package re.legend.crowd_simulator.pathfinding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.math.Vector2;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+
+/**
+ * Builds the waypoints graph of a map: two waypoints are linked when they are
+ * closer than {@link #LINK_DISTANCE}
+ *
+ * The neighbours of each waypoint are found through a {@link WaypointGrid} whose
+ * cells are as large as the link distance, so only the waypoints of the
+ * surrounding cells are compared and the construction grows linearly with the
+ * number of waypoints.
+ */
+public class WaypointGraphBuilder {
+
+	// Maximum distance between two linked waypoints
+	public static final float LINK_DISTANCE = 60f;
+
+	private WaypointGraphBuilder() {
+	}
+
+	/**
+	 * Builds the graph
+	 *
+	 * @param positions the positions of the waypoints, in the order of the map
+	 * @return the waypoints graph, its nodes in the order of the positions
+	 */
+	public static MutableGraph<AStarNode> build(List<? extends Vector2> positions) {
+		List<AStarNode> nodes = new ArrayList<>(positions.size());
+		MutableGraph<AStarNode> graph = GraphBuilder.undirected().expectedNodeCount(positions.size()).build();
+		for (Vector2 position : positions) {
+			AStarNode node = new AStarNode(position.x, position.y);
+			nodes.add(node);
+			graph.addNode(node);
+		}
+
+		WaypointGrid grid = new WaypointGrid(nodes, LINK_DISTANCE);
+		for (int i = 0; i < nodes.size(); i++) {
+			AStarNode node = nodes.get(i);
+			int index = i;
+			grid.forEachWithin(node.x, node.y, LINK_DISTANCE, neighbour -> {
+				// Each pair is linked once, waypoints at the same place are the same node
+				if (neighbour > index && !nodes.get(neighbour).equals(node)) {
+					graph.putEdge(node, nodes.get(neighbour));
+				}
+			});
+		}
+		return graph;
+	}
+}
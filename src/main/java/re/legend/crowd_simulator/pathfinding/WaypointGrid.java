@@ -0,0 +1,178 @@
+package re.legend.crowd_simulator.pathfinding;
+
+import java.util.List;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Uniform grid buckets over a fixed set of points, for nearest point and radius
+ * queries
+ *
+ * The points are sorted by cell once, with a counting sort, into a flat array;
+ * each cell is a contiguous range of that array. A nearest point query looks at
+ * the rings of cells around the query point, from the closest ring outwards,
+ * and stops as soon as no further ring can hold a closer point.
+ */
+public class WaypointGrid {
+
+	// Default size of a cell, the distance under which two waypoints are linked
+	public static final float DEFAULT_CELL_SIZE = WaypointGraphBuilder.LINK_DISTANCE;
+
+	// Size of a cell
+	private final float cellSize;
+
+	// Coordinates of the corner of the grid
+	private final float originX;
+	private final float originY;
+
+	// Number of cells on each axis
+	private final int columns;
+	private final int rows;
+
+	// Index of the first point of each cell in the sorted array (size: cells + 1)
+	private final int[] cellStart;
+
+	// Indexes of the points, sorted by cell
+	private final int[] sortedPoints;
+
+	// Indexed points
+	private final List<? extends Vector2> points;
+
+	/**
+	 * Builds the grid
+	 *
+	 * @param points   the points to index, their index in the list identifies
+	 *                 them
+	 * @param cellSize the size of a cell
+	 */
+	public WaypointGrid(List<? extends Vector2> points, float cellSize) {
+		this.cellSize = cellSize;
+		this.points = points;
+
+		float minX = 0;
+		float minY = 0;
+		float maxX = 0;
+		float maxY = 0;
+		for (int i = 0; i < points.size(); i++) {
+			Vector2 point = points.get(i);
+			minX = i == 0 ? point.x : Math.min(minX, point.x);
+			minY = i == 0 ? point.y : Math.min(minY, point.y);
+			maxX = i == 0 ? point.x : Math.max(maxX, point.x);
+			maxY = i == 0 ? point.y : Math.max(maxY, point.y);
+		}
+		this.originX = minX;
+		this.originY = minY;
+		this.columns = (int) ((maxX - minX) / cellSize) + 1;
+		this.rows = (int) ((maxY - minY) / cellSize) + 1;
+
+		// Counts the points of each cell, then places them with a prefix sum
+		this.cellStart = new int[this.columns * this.rows + 1];
+		int[] cells = new int[points.size()];
+		for (int i = 0; i < points.size(); i++) {
+			cells[i] = cellIndex(column(points.get(i).x), row(points.get(i).y));
+			this.cellStart[cells[i] + 1]++;
+		}
+		for (int c = 0; c < this.cellStart.length - 1; c++) {
+			this.cellStart[c + 1] += this.cellStart[c];
+		}
+		int[] cursor = new int[this.columns * this.rows];
+		this.sortedPoints = new int[points.size()];
+		for (int i = 0; i < points.size(); i++) {
+			this.sortedPoints[this.cellStart[cells[i]] + cursor[cells[i]]++] = i;
+		}
+	}
+
+	/**
+	 * @param x the x coordinate of a point
+	 * @param y the y coordinate of a point
+	 * @return the index of the indexed point nearest to the given point, -1 if
+	 *         there is none
+	 */
+	public int findNearest(float x, float y) {
+		if (this.points.isEmpty()) {
+			return -1;
+		}
+		int centerColumn = column(x);
+		int centerRow = row(y);
+		int nearest = -1;
+		float nearestDistance = Float.MAX_VALUE;
+		int maxRing = Math.max(this.columns, this.rows);
+		for (int ring = 0; ring <= maxRing; ring++) {
+			for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+				if (row < 0 || row >= this.rows) {
+					continue;
+				}
+				// Only the border of the ring is looked at
+				int step = row == centerRow - ring || row == centerRow + ring ? 1 : Math.max(1, 2 * ring);
+				for (int column = centerColumn - ring; column <= centerColumn + ring; column += step) {
+					if (column < 0 || column >= this.columns) {
+						continue;
+					}
+					int cell = cellIndex(column, row);
+					for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+						Vector2 point = this.points.get(this.sortedPoints[i]);
+						float distance = Vector2.dst2(x, y, point.x, point.y);
+						if (distance < nearestDistance) {
+							nearestDistance = distance;
+							nearest = this.sortedPoints[i];
+						}
+					}
+				}
+			}
+			// The points of the next rings are at least ring * cellSize away
+			float reach = ring * this.cellSize;
+			if (nearest >= 0 && nearestDistance <= reach * reach) {
+				break;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Calls the given consumer for each indexed point closer than the given
+	 * distance to the given point
+	 *
+	 * @param x        the x coordinate of the point
+	 * @param y        the y coordinate of the point
+	 * @param distance the distance
+	 * @param consumer receives the index of each point found
+	 */
+	public void forEachWithin(float x, float y, float distance, PointConsumer consumer) {
+		int minColumn = Math.max(0, column(x - distance));
+		int maxColumn = Math.min(this.columns - 1, column(x + distance));
+		int minRow = Math.max(0, row(y - distance));
+		int maxRow = Math.min(this.rows - 1, row(y + distance));
+		float distance2 = distance * distance;
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int column = minColumn; column <= maxColumn; column++) {
+				int cell = cellIndex(column, row);
+				for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+					Vector2 point = this.points.get(this.sortedPoints[i]);
+					if (Vector2.dst2(x, y, point.x, point.y) < distance2) {
+						consumer.accept(this.sortedPoints[i]);
+					}
+				}
+			}
+		}
+	}
+
+	private int column(float x) {
+		return Math.max(0, Math.min(this.columns - 1, (int) Math.floor((x - this.originX) / this.cellSize)));
+	}
+
+	private int row(float y) {
+		return Math.max(0, Math.min(this.rows - 1, (int) Math.floor((y - this.originY) / this.cellSize)));
+	}
+
+	private int cellIndex(int column, int row) {
+		return row * this.columns + column;
+	}
+
+	/**
+	 * Receives the points found by a query
+	 */
+	@FunctionalInterface
+	public interface PointConsumer {
+		void accept(int point);
+	}
+}
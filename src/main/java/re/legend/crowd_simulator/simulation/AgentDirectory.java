@@ -0,0 +1,73 @@
+package re.legend.crowd_simulator.simulation;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.sarl.lang.core.Event;
+import io.sarl.lang.core.EventListener;
+
+/**
+ * Directory of the event listeners of the agents, keyed on the id of their
+ * body, so the environment can hand an event to one agent directly
+ *
+ * Emitting an event in a space scoped to one agent tests the scope against
+ * every participant of the space, which makes notifying every agent quadratic
+ * in the number of agents. An agent registers its listener here once, when it
+ * is initialized, and the environment then delivers each of its perceptions
+ * with a single lookup. The events are still handled asynchronously by the
+ * agent, as if they came from the space.
+ *
+ * The directory can be used from any thread.
+ */
+public class AgentDirectory {
+
+	// Event listener of each registered agent, keyed on the id of its body
+	private final Map<UUID, EventListener> listeners = new ConcurrentHashMap<>();
+
+	/**
+	 * @param id       the id of the body of the agent
+	 * @param listener the event listener of the agent
+	 */
+	public void register(UUID id, EventListener listener) {
+		this.listeners.put(id, listener);
+	}
+
+	/**
+	 * @param id the id of the body of the agent
+	 */
+	public void unregister(UUID id) {
+		this.listeners.remove(id);
+	}
+
+	/**
+	 * @param id the id of the body of an agent
+	 * @return true if the agent has registered its listener
+	 */
+	public boolean isRegistered(UUID id) {
+		return this.listeners.containsKey(id);
+	}
+
+	/**
+	 * Delivers an event to an agent
+	 *
+	 * @param id    the id of the body of the agent
+	 * @param event the event, its source must already be set
+	 * @return false if the agent is not registered, the event is then dropped
+	 */
+	public boolean send(UUID id, Event event) {
+		EventListener listener = this.listeners.get(id);
+		if (listener == null) {
+			return false;
+		}
+		listener.receiveEvent(event);
+		return true;
+	}
+
+	/**
+	 * @return the number of registered agents
+	 */
+	public int size() {
+		return this.listeners.size();
+	}
+}
@@ -0,0 +1,119 @@
+package re.legend.crowd_simulator.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.map.BodyGrid;
+import re.legend.crowd_simulator.map.BodyStore;
+import re.legend.crowd_simulator.map.Map;
+
+/**
+ * Spread of the alarm from the bomb, as a circular wave growing at a constant
+ * speed
+ *
+ * The wave is propagated once per step, right after the body grid is rebuilt.
+ * A body is reached at a step if it is inside the wave while it was outside of
+ * it at the previous step, its position then being the one it had at the
+ * beginning of the last applied step: every agent is thus alerted once, when
+ * the wave reaches it, without remembering the alerted ones. Only the ring that
+ * the wave covered since the previous step, widened inwards by the longest
+ * motion of the last step, is looked up in the grid. The wave is over once it
+ * covers the whole map.
+ */
+public class AlarmPropagation {
+
+	// Center of the wave
+	private final float originX;
+	private final float originY;
+
+	// Simulated time at which the wave starts (in seconds)
+	private final float startTime;
+
+	// Speed of the wave (in px per second of simulated time)
+	private final float speed;
+
+	// Radius beyond which the whole map is covered
+	private final float maxRadius;
+
+	// Radius of the wave at the previous step, negative before the first one
+	private float previousRadius = -1;
+
+	// Bodies found by the last query of the grid
+	private final List<AgentBody> candidates = new ArrayList<>();
+
+	// True once the wave covers the whole map
+	private boolean complete;
+
+	/**
+	 * Constructor
+	 *
+	 * @param originX   the x coordinate of the center of the wave
+	 * @param originY   the y coordinate of the center of the wave
+	 * @param startTime the simulated time at which the wave starts
+	 * @param speed     the speed of the wave, in px per second
+	 */
+	public AlarmPropagation(float originX, float originY, float startTime, float speed) {
+		if (speed <= 0) {
+			throw new IllegalArgumentException("The speed of the alarm must be positive");
+		}
+		this.originX = originX;
+		this.originY = originY;
+		this.startTime = startTime;
+		this.speed = speed;
+		float farthestX = Math.max(originX, Map.MAP_SIZE - originX);
+		float farthestY = Math.max(originY, Map.MAP_SIZE - originY);
+		this.maxRadius = (float) Math.sqrt(farthestX * farthestX + farthestY * farthestY);
+	}
+
+	/**
+	 * Adds to the given list the bodies reached by the wave since the previous
+	 * step, to be called once per step
+	 *
+	 * @param time          the current simulated time
+	 * @param store         the bodies, their previous positions being the ones of
+	 *                      the previous call
+	 * @param grid          the body grid, up to date
+	 * @param longestMotion the longest distance covered by a body since the
+	 *                      previous call
+	 * @param result        the list receiving the newly alerted bodies
+	 */
+	public void propagate(float time, BodyStore store, BodyGrid grid, float longestMotion, List<AgentBody> result) {
+		if (this.complete) {
+			return;
+		}
+		float radius = Math.max(0, (time - this.startTime) * this.speed);
+		this.candidates.clear();
+		// A body reached now was outside of the previous wave, and moved at most of the
+		// longest motion since
+		grid.queryRing(this.originX, this.originY, this.previousRadius - longestMotion, radius, this.candidates);
+		float[] previousX = store.getPreviousX();
+		float[] previousY = store.getPreviousY();
+		float previousRadius2 = this.previousRadius < 0 ? -1 : this.previousRadius * this.previousRadius;
+		for (int i = 0; i < this.candidates.size(); i++) {
+			int slot = this.candidates.get(i).getSlot();
+			float dx = previousX[slot] - this.originX;
+			float dy = previousY[slot] - this.originY;
+			if (dx * dx + dy * dy > previousRadius2) {
+				result.add(this.candidates.get(i));
+			}
+		}
+		this.previousRadius = radius;
+		this.complete = radius >= this.maxRadius;
+	}
+
+	/**
+	 * @param time the current simulated time
+	 * @return the radius of the wave at the given time
+	 */
+	public float getRadius(float time) {
+		return Math.min(this.maxRadius, Math.max(0, (time - this.startTime) * this.speed));
+	}
+
+	/**
+	 * @return true once the wave covers the whole map
+	 */
+	public boolean isComplete() {
+		return this.complete;
+	}
+}
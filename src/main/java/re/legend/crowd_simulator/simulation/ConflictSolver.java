@@ -0,0 +1,306 @@
+package re.legend.crowd_simulator.simulation;
+
+import java.util.Arrays;
+
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.entities.gameobjects.Wall;
+import re.legend.crowd_simulator.map.BodyStore;
+import re.legend.crowd_simulator.map.Map;
+import re.legend.crowd_simulator.map.WallGrid;
+
+/**
+ * Resolves the conflicts between the motions collected for a step, before they
+ * are applied
+ *
+ * The position each body would reach is predicted from its motion. Two
+ * predicted positions closer than twice {@link AgentBody#RADIUS} are in
+ * conflict, and so is a predicted position inside a wall. The conflicts are
+ * resolved by a fixed number of Jacobi iterations: each iteration hashes the
+ * predicted positions in a grid of cells as large as the contact distance,
+ * then every body computes, from the positions of the previous iteration only,
+ * the mean of the corrections that separate it from its neighbours, and moves
+ * of it. A body whose predicted position falls in a wall slides along it.
+ *
+ * A body must never move further than half a tile between two checks, or it
+ * could cross a wall. The step is thus split in as many sub-steps as needed for
+ * the longest motion of the step to stay within a quarter of a tile in each of
+ * them, and the iterations are run at every sub-step. The motion of a body is
+ * never shortened: only the corrections of a sub-step are bounded, to the
+ * other quarter of a tile. The motions of the store are then replaced by the
+ * ones leading to the positions reached at the end of the last sub-step.
+ *
+ * Each body only writes its own entries during an iteration, so the bodies can
+ * be corrected in parallel and the result does not depend on the order in which
+ * they are.
+ */
+public class ConflictSolver {
+
+	// Number of iterations of a step
+	public static final int ITERATIONS = 4;
+
+	// Distance under which two bodies are in conflict
+	public static final float CONTACT_DISTANCE = 2 * AgentBody.RADIUS;
+
+	// Longest distance covered by a body between two checks of the walls
+	public static final float MAX_MOTION = Wall.SIZE / 2f;
+
+	// Longest motion of a sub-step, the rest of MAX_MOTION being left to the
+	// corrections
+	public static final float MAX_SUB_STEP_MOTION = MAX_MOTION / 2;
+
+	// Angle spreading the directions in which the bodies on the same spot are
+	// split
+	private static final float GOLDEN_ANGLE = (float) (Math.PI * (3 - Math.sqrt(5)));
+
+	// Number of cells on each axis
+	private final int columns;
+
+	// Index of the first body of each cell in the sorted array (size: cells + 1)
+	private final int[] cellStart;
+
+	// Insertion cursor of each cell, used while hashing
+	private final int[] cellCursor;
+
+	// Cell of each slot
+	private int[] bodyCells = new int[0];
+
+	// Slots sorted by cell
+	private int[] sortedSlots = new int[0];
+
+	// Position of each slot at the beginning of the current sub-step
+	private float[] positionX = new float[0];
+	private float[] positionY = new float[0];
+
+	// Predicted position of each slot
+	private float[] predictedX = new float[0];
+	private float[] predictedY = new float[0];
+
+	// Correction of each slot computed by the current iteration
+	private float[] correctionX = new float[0];
+	private float[] correctionY = new float[0];
+
+	// Walls of the map
+	private WallGrid walls;
+
+	// Number of sub-steps of the current step
+	private int subSteps = 1;
+
+	// Longest corrected motion of the last step
+	private float longestMotion;
+
+	/**
+	 * Constructor
+	 */
+	public ConflictSolver() {
+		this.columns = (int) Math.ceil(Map.MAP_SIZE / CONTACT_DISTANCE);
+		this.cellStart = new int[this.columns * this.columns + 1];
+		this.cellCursor = new int[this.columns * this.columns];
+	}
+
+	/**
+	 * Starts the resolution of a step, splitting it in sub-steps short enough for
+	 * the longest motion
+	 *
+	 * @param store the bodies, their motions collected
+	 * @param walls the walls of the map
+	 * @return the number of sub-steps of the step
+	 */
+	int begin(BodyStore store, WallGrid walls) {
+		this.walls = walls;
+		int count = store.size();
+		if (this.sortedSlots.length < count) {
+			int capacity = count + count / 2;
+			this.bodyCells = new int[capacity];
+			this.sortedSlots = new int[capacity];
+			this.positionX = new float[capacity];
+			this.positionY = new float[capacity];
+			this.predictedX = new float[capacity];
+			this.predictedY = new float[capacity];
+			this.correctionX = new float[capacity];
+			this.correctionY = new float[capacity];
+		}
+		System.arraycopy(store.getX(), 0, this.positionX, 0, count);
+		System.arraycopy(store.getY(), 0, this.positionY, 0, count);
+		float[] motionX = store.getMotionX();
+		float[] motionY = store.getMotionY();
+		float longest2 = 0;
+		for (int slot = 0; slot < count; slot++) {
+			longest2 = Math.max(longest2, motionX[slot] * motionX[slot] + motionY[slot] * motionY[slot]);
+		}
+		this.subSteps = Math.max(1, (int) Math.ceil(Math.sqrt(longest2) / MAX_SUB_STEP_MOTION));
+		return this.subSteps;
+	}
+
+	/**
+	 * Predicts the position of each body at the end of a sub-step from its
+	 * motion, and hashes them
+	 *
+	 * @param store   the bodies, their motions collected
+	 * @param subStep the index of the sub-step, the previous ones being resolved
+	 */
+	void predict(BodyStore store, int subStep) {
+		int count = store.size();
+		if (subStep > 0) {
+			// The sub-step starts where the previous one ended
+			System.arraycopy(this.predictedX, 0, this.positionX, 0, count);
+			System.arraycopy(this.predictedY, 0, this.positionY, 0, count);
+		}
+		float fraction = 1f / this.subSteps;
+		float[] motionX = store.getMotionX();
+		float[] motionY = store.getMotionY();
+		for (int slot = 0; slot < count; slot++) {
+			this.predictedX[slot] = this.positionX[slot] + motionX[slot] * fraction;
+			this.predictedY[slot] = this.positionY[slot] + motionY[slot] * fraction;
+		}
+		hash(count);
+	}
+
+	/**
+	 * Computes the correction of a body from the predicted positions of the
+	 * previous iteration
+	 *
+	 * @param slot the slot of the body
+	 */
+	void computeCorrection(int slot) {
+		float px = this.predictedX[slot];
+		float py = this.predictedY[slot];
+		float sumX = 0;
+		float sumY = 0;
+		int contacts = 0;
+
+		int column = cell(px);
+		int row = cell(py);
+		for (int r = Math.max(0, row - 1); r <= Math.min(this.columns - 1, row + 1); r++) {
+			for (int c = Math.max(0, column - 1); c <= Math.min(this.columns - 1, column + 1); c++) {
+				int cell = r * this.columns + c;
+				for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+					int other = this.sortedSlots[i];
+					if (other == slot) {
+						continue;
+					}
+					float dx = px - this.predictedX[other];
+					float dy = py - this.predictedY[other];
+					float distance2 = dx * dx + dy * dy;
+					if (distance2 >= CONTACT_DISTANCE * CONTACT_DISTANCE) {
+						continue;
+					}
+					float distance = (float) Math.sqrt(distance2);
+					float normalX;
+					float normalY;
+					if (distance < 1e-4f) {
+						// Bodies on the same spot are split along a direction given by the pair,
+						// opposite for its two bodies
+						float angle = (Math.min(slot, other) * 31 + Math.max(slot, other)) * GOLDEN_ANGLE;
+						float sign = slot < other ? -1 : 1;
+						normalX = sign * (float) Math.cos(angle);
+						normalY = sign * (float) Math.sin(angle);
+					} else {
+						normalX = dx / distance;
+						normalY = dy / distance;
+					}
+					// Each body of the pair moves of half of the overlap
+					float push = (CONTACT_DISTANCE - distance) / 2;
+					sumX += normalX * push;
+					sumY += normalY * push;
+					contacts++;
+				}
+			}
+		}
+		this.correctionX[slot] = contacts == 0 ? 0 : sumX / contacts;
+		this.correctionY[slot] = contacts == 0 ? 0 : sumY / contacts;
+	}
+
+	/**
+	 * Moves the predicted position of a body of its correction, keeping it out
+	 * of the walls
+	 *
+	 * @param store the bodies
+	 * @param slot  the slot of the body
+	 */
+	void applyCorrection(BodyStore store, int slot) {
+		float x = this.positionX[slot];
+		float y = this.positionY[slot];
+		float px = this.predictedX[slot] + this.correctionX[slot];
+		float py = this.predictedY[slot] + this.correctionY[slot];
+
+		// Bounds the corrections of the sub-step, never the motion of the body, so
+		// that a wall can't be skipped
+		float fraction = 1f / this.subSteps;
+		float targetX = x + store.getMotionX()[slot] * fraction;
+		float targetY = y + store.getMotionY()[slot] * fraction;
+		float cx = px - targetX;
+		float cy = py - targetY;
+		float length2 = cx * cx + cy * cy;
+		if (length2 > MAX_SUB_STEP_MOTION * MAX_SUB_STEP_MOTION) {
+			float scale = MAX_SUB_STEP_MOTION / (float) Math.sqrt(length2);
+			px = targetX + cx * scale;
+			py = targetY + cy * scale;
+		}
+
+		// A body already in a wall (spawned or pushed there) is let out freely
+		if (this.walls != null && !this.walls.isWallAt(x, y) && this.walls.isWallAt(px, py)) {
+			if (!this.walls.isWallAt(px, y)) {
+				py = y;
+			} else if (!this.walls.isWallAt(x, py)) {
+				px = x;
+			} else {
+				px = x;
+				py = y;
+			}
+		}
+		this.predictedX[slot] = px;
+		this.predictedY[slot] = py;
+	}
+
+	/**
+	 * Hashes the predicted positions of the current iteration
+	 *
+	 * @param count the number of bodies
+	 */
+	void hash(int count) {
+		Arrays.fill(this.cellStart, 0);
+		for (int slot = 0; slot < count; slot++) {
+			int cell = cell(this.predictedY[slot]) * this.columns + cell(this.predictedX[slot]);
+			this.bodyCells[slot] = cell;
+			this.cellStart[cell + 1]++;
+		}
+		for (int c = 0; c < this.cellStart.length - 1; c++) {
+			this.cellStart[c + 1] += this.cellStart[c];
+		}
+		System.arraycopy(this.cellStart, 0, this.cellCursor, 0, this.cellCursor.length);
+		for (int slot = 0; slot < count; slot++) {
+			this.sortedSlots[this.cellCursor[this.bodyCells[slot]]++] = slot;
+		}
+	}
+
+	/**
+	 * Replaces the motion of each body by the one leading to its corrected
+	 * position at the end of the last sub-step
+	 *
+	 * @param store the bodies
+	 */
+	void writeMotions(BodyStore store) {
+		float[] x = store.getX();
+		float[] y = store.getY();
+		float longest2 = 0;
+		for (int slot = 0; slot < store.size(); slot++) {
+			float dx = this.predictedX[slot] - x[slot];
+			float dy = this.predictedY[slot] - y[slot];
+			store.setMotion(slot, dx, dy);
+			longest2 = Math.max(longest2, dx * dx + dy * dy);
+		}
+		this.longestMotion = (float) Math.sqrt(longest2);
+	}
+
+	/**
+	 * @return the length of the longest motion written by the last step
+	 */
+	float getLongestMotion() {
+		return this.longestMotion;
+	}
+
+	private int cell(float coordinate) {
+		int cell = (int) Math.floor(coordinate / CONTACT_DISTANCE);
+		return cell < 0 ? 0 : (cell >= this.columns ? this.columns - 1 : cell);
+	}
+}
@@ -0,0 +1,195 @@
+package re.legend.crowd_simulator.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Parameters of a simulation run without any window
+ *
+ * In headless mode the simulation steps are chained as fast as the agents can
+ * process them, each step advancing the simulated time by a fixed time step.
+ */
+public class HeadlessConfiguration {
+
+	// Path of the map to load
+	private String mapPath = "map/map2.tmx";
+
+	// Number of agents to spawn per spawner
+	private int nbAgents = 150;
+
+	// Spawn frequency (in ms of simulated time)
+	private float spawnerFrequency = 1000;
+
+	// Simulated time at which the bomb is triggered (in seconds)
+	private float bombTime = 60f;
+
+	// Simulated duration of a step (in seconds)
+	private float timeStep = SimulationClock.DEFAULT_STEP_DURATION;
+
+	// Number of threads used by the environment passes
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	// Speed at which the alarm spreads from the bomb (in px per second), 0 to
+	// alert every agent at once
+	private float alarmSpeed = 0f;
+
+	// Simulated time after which the run is stopped even if the evacuation is not
+	// over (in seconds), 0 for no limit
+	private float timeLimit = 0f;
+
+	// File the report of the run is written to, null to write none
+	private File reportFile;
+
+	// Measures of the run
+	private final RunReport report = new RunReport();
+
+	// Released when the simulation is over
+	private final CountDownLatch finished = new CountDownLatch(1);
+
+	/**
+	 * Parses the command line arguments, unknown arguments are ignored
+	 *
+	 * @param args the arguments, as "--name value" pairs
+	 * @return the configuration
+	 */
+	public static HeadlessConfiguration parse(String[] args) {
+		HeadlessConfiguration configuration = new HeadlessConfiguration();
+		for (int i = 0; i < args.length - 1; i++) {
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "--map":
+				configuration.mapPath = value;
+				break;
+			case "--agents":
+				configuration.nbAgents = Integer.parseInt(value);
+				break;
+			case "--frequency":
+				configuration.spawnerFrequency = Float.parseFloat(value);
+				break;
+			case "--bomb-time":
+				configuration.bombTime = Float.parseFloat(value);
+				break;
+			case "--time-step":
+				configuration.timeStep = Float.parseFloat(value);
+				break;
+			case "--threads":
+				configuration.threads = Integer.parseInt(value);
+				break;
+			case "--alarm-speed":
+				configuration.alarmSpeed = Float.parseFloat(value);
+				break;
+			case "--time-limit":
+				configuration.timeLimit = Float.parseFloat(value);
+				break;
+			case "--report":
+				configuration.reportFile = new File(value);
+				break;
+			default:
+				continue;
+			}
+			i++;
+		}
+		if (configuration.nbAgents <= 0 || configuration.spawnerFrequency <= 0 || configuration.timeStep <= 0
+				|| configuration.threads <= 0) {
+			throw new IllegalArgumentException(
+					"The number of agents, the frequency, the time step and the number of threads must be positive");
+		}
+		if (configuration.alarmSpeed < 0 || configuration.timeLimit < 0) {
+			throw new IllegalArgumentException("The speed of the alarm and the time limit can't be negative");
+		}
+		return configuration;
+	}
+
+	/**
+	 * @return the path of the map to load
+	 */
+	public String getMapPath() {
+		return this.mapPath;
+	}
+
+	/**
+	 * @return the number of agents to spawn per spawner
+	 */
+	public int getNbAgents() {
+		return this.nbAgents;
+	}
+
+	/**
+	 * @return the spawn frequency (in ms of simulated time)
+	 */
+	public float getSpawnerFrequency() {
+		return this.spawnerFrequency;
+	}
+
+	/**
+	 * @return the simulated time at which the bomb is triggered (in seconds)
+	 */
+	public float getBombTime() {
+		return this.bombTime;
+	}
+
+	/**
+	 * @return the simulated duration of a step (in seconds)
+	 */
+	public float getTimeStep() {
+		return this.timeStep;
+	}
+
+	/**
+	 * @return the number of threads used by the environment passes
+	 */
+	public int getThreads() {
+		return this.threads;
+	}
+
+	/**
+	 * @return the speed at which the alarm spreads from the bomb (in px per
+	 *         second), 0 if every agent is alerted at once
+	 */
+	public float getAlarmSpeed() {
+		return this.alarmSpeed;
+	}
+
+	/**
+	 * @return the simulated time after which the run is stopped (in seconds), 0
+	 *         if there is no limit
+	 */
+	public float getTimeLimit() {
+		return this.timeLimit;
+	}
+
+	/**
+	 * @return the measures of the run
+	 */
+	public RunReport getReport() {
+		return this.report;
+	}
+
+	/**
+	 * Writes the report of the run, if a file was given
+	 *
+	 * @throws IOException if the report can't be written
+	 */
+	public void writeReport() throws IOException {
+		if (this.reportFile != null) {
+			this.report.write(this.reportFile);
+		}
+	}
+
+	/**
+	 * Notifies that the simulation is over
+	 */
+	public void finish() {
+		this.finished.countDown();
+	}
+
+	/**
+	 * Blocks until the simulation is over
+	 *
+	 * @throws InterruptedException if the waiting thread is interrupted
+	 */
+	public void awaitFinish() throws InterruptedException {
+		this.finished.await();
+	}
+}
@@ -0,0 +1,164 @@
+package re.legend.crowd_simulator.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measures of a headless run, written as a single JSON object once the run is
+ * over
+ *
+ * The environment records the wall-clock duration of each step, from the
+ * beginning of its passes until the agents have answered their perceptions, so
+ * the latency includes the dispatch of the events and the work of the agents.
+ * The heap in use is sampled after each step, and the evacuation lasts from the
+ * simulated time of the bomb to the one at which the last agent left the mall.
+ */
+public class RunReport {
+
+	// Initial capacity of the step durations
+	private static final int INITIAL_CAPACITY = 1024;
+
+	// Number of agents spawned during the run
+	private int agents;
+
+	// Wall-clock duration of each step (in ns)
+	private long[] stepDurations = new long[INITIAL_CAPACITY];
+
+	// Number of recorded steps
+	private int steps;
+
+	// Wall-clock time of the first recorded step (in ns), 0 until then
+	private long startTime;
+
+	// Wall-clock time of the end of the last recorded step (in ns)
+	private long endTime;
+
+	// Largest number of bodies on the map at the end of a step
+	private int peakBodies;
+
+	// Largest heap in use after a step (in bytes)
+	private long peakHeap;
+
+	// Simulated time of the bomb (in seconds), negative until it is triggered
+	private float bombTime = -1;
+
+	// Simulated time at which the run ended (in seconds)
+	private float endSimulatedTime;
+
+	// True if every agent left the mall before the run ended
+	private boolean evacuated;
+
+	/**
+	 * Records a step, called by the environment at its end
+	 *
+	 * @param startTime the wall-clock time at which the step began (in ns, from
+	 *                  {@link System#nanoTime()})
+	 * @param bodies    the number of bodies on the map
+	 */
+	public void recordStep(long startTime, int bodies) {
+		long now = System.nanoTime();
+		if (this.steps == this.stepDurations.length) {
+			this.stepDurations = Arrays.copyOf(this.stepDurations, 2 * this.steps);
+		}
+		if (this.steps == 0) {
+			this.startTime = startTime;
+		}
+		this.stepDurations[this.steps++] = now - startTime;
+		this.endTime = now;
+		this.peakBodies = Math.max(this.peakBodies, bodies);
+		Runtime runtime = Runtime.getRuntime();
+		this.peakHeap = Math.max(this.peakHeap, runtime.totalMemory() - runtime.freeMemory());
+	}
+
+	/**
+	 * @param agents the number of agents spawned during the run, the spawners
+	 *               stopping when the bomb is triggered
+	 */
+	public void setAgents(int agents) {
+		this.agents = agents;
+	}
+
+	/**
+	 * @param time the simulated time at which the bomb was triggered (in seconds)
+	 */
+	public void setBombTime(float time) {
+		this.bombTime = time;
+	}
+
+	/**
+	 * Ends the run
+	 *
+	 * @param time      the simulated time at which the run ended (in seconds)
+	 * @param evacuated true if every agent left the mall
+	 */
+	public void finish(float time, boolean evacuated) {
+		this.endSimulatedTime = time;
+		this.evacuated = evacuated;
+	}
+
+	/**
+	 * @return the number of recorded steps
+	 */
+	public int getSteps() {
+		return this.steps;
+	}
+
+	/**
+	 * @return the number of steps per second of wall-clock time
+	 */
+	public double getStepsPerSecond() {
+		return this.steps == 0 || this.endTime == this.startTime ? 0
+				: this.steps / ((this.endTime - this.startTime) / 1e9);
+	}
+
+	/**
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the duration of a step at that percentile (in ms), nearest rank
+	 */
+	public double getStepLatency(double percentile) {
+		if (this.steps == 0) {
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(this.stepDurations, this.steps);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100 * this.steps);
+		return sorted[Math.max(0, Math.min(this.steps - 1, rank - 1))] / 1e6;
+	}
+
+	/**
+	 * @return the simulated duration of the evacuation (in seconds), negative if
+	 *         it did not complete
+	 */
+	public float getEvacuationTime() {
+		return this.evacuated && this.bombTime >= 0 ? this.endSimulatedTime - this.bombTime : -1;
+	}
+
+	/**
+	 * @return the report as a single line JSON object
+	 */
+	public String toJson() {
+		return String.format(Locale.ROOT,
+				"{\"agents\":%d,\"peakBodies\":%d,\"steps\":%d,\"stepsPerSecond\":%.3f,\"stepP50Ms\":%.3f,"
+						+ "\"stepP99Ms\":%.3f,\"stepMaxMs\":%.3f,\"peakHeapMb\":%.1f,\"bombTime\":%.3f,"
+						+ "\"simulatedTime\":%.3f,\"evacuated\":%b,\"evacuationTime\":%.3f}",
+				this.agents, this.peakBodies, this.steps, getStepsPerSecond(), getStepLatency(50), getStepLatency(99),
+				getStepLatency(100), this.peakHeap / (1024.0 * 1024.0), this.bombTime, this.endSimulatedTime,
+				this.evacuated, getEvacuationTime());
+	}
+
+	/**
+	 * Writes the report to a file
+	 *
+	 * @param file the file to write, replaced if it exists
+	 * @throws IOException if the file can't be written
+	 */
+	public void write(File file) throws IOException {
+		try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+			writer.println(toJson());
+		}
+	}
+}
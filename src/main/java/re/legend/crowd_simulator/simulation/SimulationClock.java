@@ -0,0 +1,128 @@
+package re.legend.crowd_simulator.simulation;
+
+/**
+ * Clock of the simulation, owned by the environment and advanced once per
+ * simulation step
+ *
+ * The simulated time never depends on how long a step took to compute: each
+ * step lasts the step duration, whatever the load and the time scale. The time
+ * scale is the number of steps run at each tick of the wall clock, so a time
+ * scale of 10 makes the simulation run ten times faster with the same dt as at
+ * normal speed: the bodies never move further in one step than they would
+ * without the acceleration. The time is computed from the number of steps run,
+ * so it does not drift as a sum of durations would.
+ */
+public class SimulationClock {
+
+	// Default simulated duration of a step (in seconds)
+	public static final float DEFAULT_STEP_DURATION = 0.05f;
+
+	// Simulated duration of a step at a time scale of 1 (in seconds)
+	private final float stepDuration;
+
+	// Time scale, how many steps are run at each tick of the wall clock
+	private volatile float timeScale;
+
+	// Number of steps run since the beginning of the simulation, only advanced
+	// by the environment
+	private volatile long steps;
+
+	// Steps due at the current tick of the wall clock, fractions of a step
+	// carried over to the next tick
+	private float dueSteps;
+
+	// True while the steps due at the current tick are being run
+	private boolean running;
+
+	/**
+	 * Constructor
+	 *
+	 * @param stepDuration simulated duration of a step (in seconds)
+	 */
+	public SimulationClock(float stepDuration) {
+		this.stepDuration = stepDuration;
+		this.timeScale = 1f;
+	}
+
+	/**
+	 * Advances the clock of one step
+	 */
+	public void tick() {
+		this.steps++;
+	}
+
+	/**
+	 * Adds the steps of a tick of the wall clock to the ones to run. The steps
+	 * which are still late at the next tick are dropped, so a simulation which
+	 * can't keep up slows down instead of piling up steps.
+	 *
+	 * @return true if a step must be started, false if there is not a whole step
+	 *         due yet or if the steps of the previous tick are still running
+	 */
+	public synchronized boolean scheduleTick() {
+		this.dueSteps = Math.min(this.dueSteps + this.timeScale, this.timeScale + 1);
+		if (this.running || this.dueSteps < 1) {
+			return false;
+		}
+		this.running = true;
+		return true;
+	}
+
+	/**
+	 * Notifies that a step started by {@link #scheduleTick()} is over
+	 *
+	 * @return true if another step is due at the current tick
+	 */
+	public synchronized boolean completeStep() {
+		this.dueSteps--;
+		this.running = this.dueSteps >= 1;
+		return this.running;
+	}
+
+	/**
+	 * @return the simulated time since the beginning of the simulation (in
+	 *         seconds)
+	 */
+	public float getTime() {
+		return (float) (this.steps * (double) this.stepDuration);
+	}
+
+	/**
+	 * @return the number of steps run since the beginning of the simulation
+	 */
+	public long getSteps() {
+		return this.steps;
+	}
+
+	/**
+	 * @return the simulated duration of a step (in seconds), the same at any time
+	 *         scale
+	 */
+	public float getDeltaTime() {
+		return this.stepDuration;
+	}
+
+	/**
+	 * @return the simulated duration of a step at a time scale of 1 (in seconds)
+	 */
+	public float getStepDuration() {
+		return this.stepDuration;
+	}
+
+	/**
+	 * @return the time scale
+	 */
+	public float getTimeScale() {
+		return this.timeScale;
+	}
+
+	/**
+	 * @param timeScale the time scale to set, must be positive
+	 */
+	public void setTimeScale(float timeScale) {
+		if (timeScale <= 0) {
+			throw new IllegalArgumentException("The time scale must be positive");
+		}
+		this.timeScale = timeScale;
+	}
+}
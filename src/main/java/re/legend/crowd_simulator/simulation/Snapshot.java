@@ -0,0 +1,395 @@
+package re.legend.crowd_simulator.simulation;
+
+import java.util.Arrays;
+
+import re.legend.crowd_simulator.entities.bodies.AdultBody;
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.entities.bodies.Sex;
+import re.legend.crowd_simulator.map.BodyStore;
+import re.legend.crowd_simulator.pathfinding.Path;
+
+/**
+ * State of the bodies at the end of a simulation step, copied into flat arrays
+ *
+ * A snapshot is written by the environment, then published through a
+ * {@link SnapshotBuffer}, and only read afterwards: the observers never look at
+ * the live bodies. The arrays are reused from one step to the next, they only
+ * grow with the crowd. The index of a body in a snapshot is the slot it had in
+ * the body store when the snapshot was taken.
+ *
+ * A snapshot holds the positions of the bodies at the beginning and at the end
+ * of the step, with the simulated times of both, so that an observer can draw
+ * the bodies anywhere in between: motion looks smooth whatever the rate of the
+ * steps, and a body skipping a snapshot never jumps since its position at the
+ * beginning of a step is its position at the end of the previous one.
+ *
+ * The steering vectors, targets and paths are only copied for the debug view,
+ * from the values the store recorded with the motions of the step.
+ */
+public class Snapshot {
+
+	// Initial number of bodies
+	private static final int INITIAL_CAPACITY = 64;
+
+	// Simulated times of the beginning and of the end of the step
+	private float previousTime;
+	private float time;
+
+	// Time scale of the clock, simulated seconds per second of the steps
+	private float timeScale = 1f;
+
+	// Number of bodies
+	private int size;
+
+	// Sex of each body, null for the bodies which are not adults
+	private Sex[] sexes = new Sex[INITIAL_CAPACITY];
+
+	// Position of each body at the beginning of the step
+	private float[] previousX = new float[INITIAL_CAPACITY];
+	private float[] previousY = new float[INITIAL_CAPACITY];
+
+	// Position and velocity of each body
+	private float[] x = new float[INITIAL_CAPACITY];
+	private float[] y = new float[INITIAL_CAPACITY];
+	private float[] velocityX = new float[INITIAL_CAPACITY];
+	private float[] velocityY = new float[INITIAL_CAPACITY];
+
+	// Steering vectors of each body, for debugging
+	private float[] aheadX = new float[INITIAL_CAPACITY];
+	private float[] aheadY = new float[INITIAL_CAPACITY];
+	private float[] ahead2X = new float[INITIAL_CAPACITY];
+	private float[] ahead2Y = new float[INITIAL_CAPACITY];
+	private float[] avoidanceX = new float[INITIAL_CAPACITY];
+	private float[] avoidanceY = new float[INITIAL_CAPACITY];
+	private float[] desiredVelocityX = new float[INITIAL_CAPACITY];
+	private float[] desiredVelocityY = new float[INITIAL_CAPACITY];
+
+	// Target of each body, NaN if it has none
+	private float[] targetX = new float[INITIAL_CAPACITY];
+	private float[] targetY = new float[INITIAL_CAPACITY];
+
+	// Index of the first path node of each body in the path arrays (size: bodies
+	// + 1)
+	private int[] pathStart = new int[INITIAL_CAPACITY + 1];
+
+	// Nodes of the paths of all the bodies, body after body
+	private float[] pathX = new float[INITIAL_CAPACITY];
+	private float[] pathY = new float[INITIAL_CAPACITY];
+
+	/**
+	 * Copies the state of the bodies, only called by the environment while it owns
+	 * the snapshot
+	 *
+	 * The steering vectors, the targets and the paths are the ones recorded in the
+	 * store with the motions of the step, and are only copied for the debug view.
+	 *
+	 * @param store the bodies, the step applied
+	 * @param clock the clock of the simulation, advanced of the step
+	 * @param debug true if the debug view is on
+	 */
+	public void capture(BodyStore store, SimulationClock clock, boolean debug) {
+		this.time = clock.getTime();
+		this.previousTime = this.time - clock.getDeltaTime();
+		this.timeScale = clock.getTimeScale();
+		this.size = store.size();
+		ensureCapacity(this.size);
+		float[] storePreviousX = store.getPreviousX();
+		float[] storePreviousY = store.getPreviousY();
+		float[] storeX = store.getX();
+		float[] storeY = store.getY();
+		float[] storeVelocityX = store.getVelocityX();
+		float[] storeVelocityY = store.getVelocityY();
+		for (int i = 0; i < this.size; i++) {
+			AgentBody body = store.getBody(i);
+			this.sexes[i] = body instanceof AdultBody ? ((AdultBody) body).getSex() : null;
+			this.previousX[i] = storePreviousX[i];
+			this.previousY[i] = storePreviousY[i];
+			this.x[i] = storeX[i];
+			this.y[i] = storeY[i];
+			this.velocityX[i] = storeVelocityX[i];
+			this.velocityY[i] = storeVelocityY[i];
+		}
+		if (debug) {
+			captureSteering(store);
+		} else {
+			Arrays.fill(this.targetX, 0, this.size, Float.NaN);
+			Arrays.fill(this.pathStart, 0, this.size + 1, 0);
+		}
+	}
+
+	private void captureSteering(BodyStore store) {
+		float[] steering = store.getSteering();
+		int pathNodes = 0;
+		for (int i = 0; i < this.size; i++) {
+			int offset = i * BodyStore.STEERING_STRIDE;
+			this.aheadX[i] = steering[offset + BodyStore.AHEAD];
+			this.aheadY[i] = steering[offset + BodyStore.AHEAD + 1];
+			this.ahead2X[i] = steering[offset + BodyStore.AHEAD2];
+			this.ahead2Y[i] = steering[offset + BodyStore.AHEAD2 + 1];
+			this.avoidanceX[i] = steering[offset + BodyStore.AVOIDANCE];
+			this.avoidanceY[i] = steering[offset + BodyStore.AVOIDANCE + 1];
+			this.desiredVelocityX[i] = steering[offset + BodyStore.DESIRED_VELOCITY];
+			this.desiredVelocityY[i] = steering[offset + BodyStore.DESIRED_VELOCITY + 1];
+			this.targetX[i] = steering[offset + BodyStore.TARGET];
+			this.targetY[i] = steering[offset + BodyStore.TARGET + 1];
+
+			Path path = store.getPath(i);
+			this.pathStart[i] = pathNodes;
+			int length = path == null ? 0 : path.length();
+			if (pathNodes + length > this.pathX.length) {
+				int capacity = Math.max(2 * this.pathX.length, pathNodes + length);
+				this.pathX = Arrays.copyOf(this.pathX, capacity);
+				this.pathY = Arrays.copyOf(this.pathY, capacity);
+			}
+			for (int n = 0; n < length; n++) {
+				this.pathX[pathNodes] = path.getNode(n).x;
+				this.pathY[pathNodes] = path.getNode(n).y;
+				pathNodes++;
+			}
+		}
+		this.pathStart[this.size] = pathNodes;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= this.x.length) {
+			return;
+		}
+		capacity = Math.max(capacity, 2 * this.x.length);
+		this.sexes = Arrays.copyOf(this.sexes, capacity);
+		this.previousX = Arrays.copyOf(this.previousX, capacity);
+		this.previousY = Arrays.copyOf(this.previousY, capacity);
+		this.x = Arrays.copyOf(this.x, capacity);
+		this.y = Arrays.copyOf(this.y, capacity);
+		this.velocityX = Arrays.copyOf(this.velocityX, capacity);
+		this.velocityY = Arrays.copyOf(this.velocityY, capacity);
+		this.aheadX = Arrays.copyOf(this.aheadX, capacity);
+		this.aheadY = Arrays.copyOf(this.aheadY, capacity);
+		this.ahead2X = Arrays.copyOf(this.ahead2X, capacity);
+		this.ahead2Y = Arrays.copyOf(this.ahead2Y, capacity);
+		this.avoidanceX = Arrays.copyOf(this.avoidanceX, capacity);
+		this.avoidanceY = Arrays.copyOf(this.avoidanceY, capacity);
+		this.desiredVelocityX = Arrays.copyOf(this.desiredVelocityX, capacity);
+		this.desiredVelocityY = Arrays.copyOf(this.desiredVelocityY, capacity);
+		this.targetX = Arrays.copyOf(this.targetX, capacity);
+		this.targetY = Arrays.copyOf(this.targetY, capacity);
+		this.pathStart = Arrays.copyOf(this.pathStart, capacity + 1);
+	}
+
+	/**
+	 * @return the simulated time of the end of the step
+	 */
+	public float getTime() {
+		return this.time;
+	}
+
+	/**
+	 * @return the simulated time of the beginning of the step
+	 */
+	public float getPreviousTime() {
+		return this.previousTime;
+	}
+
+	/**
+	 * @return the time scale of the clock, how many simulated seconds pass per
+	 *         real second
+	 */
+	public float getTimeScale() {
+		return this.timeScale;
+	}
+
+	/**
+	 * @param time a simulated time
+	 * @return the fraction of the step elapsed at the given time, between 0 (its
+	 *         beginning) and 1 (its end)
+	 */
+	public float getProgress(float time) {
+		if (time >= this.time || this.time <= this.previousTime) {
+			return 1;
+		}
+		if (time <= this.previousTime) {
+			return 0;
+		}
+		return (time - this.previousTime) / (this.time - this.previousTime);
+	}
+
+	/**
+	 * @return the number of bodies
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the sex of the body, null if it is not an adult
+	 */
+	public Sex getSex(int body) {
+		return this.sexes[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the x coordinate of the body
+	 */
+	public float getX(int body) {
+		return this.x[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the y coordinate of the body
+	 */
+	public float getY(int body) {
+		return this.y[body];
+	}
+
+	/**
+	 * @param body     the index of a body
+	 * @param progress the fraction of the step elapsed, see
+	 *                 {@link #getProgress(float)}
+	 * @return the x coordinate of the body at that point of the step
+	 */
+	public float getX(int body, float progress) {
+		return this.previousX[body] + (this.x[body] - this.previousX[body]) * progress;
+	}
+
+	/**
+	 * @param body     the index of a body
+	 * @param progress the fraction of the step elapsed, see
+	 *                 {@link #getProgress(float)}
+	 * @return the y coordinate of the body at that point of the step
+	 */
+	public float getY(int body, float progress) {
+		return this.previousY[body] + (this.y[body] - this.previousY[body]) * progress;
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the velocity of the body on the x axis
+	 */
+	public float getVelocityX(int body) {
+		return this.velocityX[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the velocity of the body on the y axis
+	 */
+	public float getVelocityY(int body) {
+		return this.velocityY[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the x coordinate of the ahead vector of the body
+	 */
+	public float getAheadX(int body) {
+		return this.aheadX[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the y coordinate of the ahead vector of the body
+	 */
+	public float getAheadY(int body) {
+		return this.aheadY[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the x coordinate of the ahead2 vector of the body
+	 */
+	public float getAhead2X(int body) {
+		return this.ahead2X[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the y coordinate of the ahead2 vector of the body
+	 */
+	public float getAhead2Y(int body) {
+		return this.ahead2Y[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the avoidance force of the body on the x axis
+	 */
+	public float getAvoidanceX(int body) {
+		return this.avoidanceX[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the avoidance force of the body on the y axis
+	 */
+	public float getAvoidanceY(int body) {
+		return this.avoidanceY[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the desired velocity of the body on the x axis
+	 */
+	public float getDesiredVelocityX(int body) {
+		return this.desiredVelocityX[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the desired velocity of the body on the y axis
+	 */
+	public float getDesiredVelocityY(int body) {
+		return this.desiredVelocityY[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return true if the body has a target
+	 */
+	public boolean hasTarget(int body) {
+		return !Float.isNaN(this.targetX[body]);
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the x coordinate of the target of the body
+	 */
+	public float getTargetX(int body) {
+		return this.targetX[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the y coordinate of the target of the body
+	 */
+	public float getTargetY(int body) {
+		return this.targetY[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @return the number of nodes of the path of the body, 0 if it has none
+	 */
+	public int getPathLength(int body) {
+		return this.pathStart[body + 1] - this.pathStart[body];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @param node the index of a node of its path
+	 * @return the x coordinate of the node
+	 */
+	public float getPathX(int body, int node) {
+		return this.pathX[this.pathStart[body] + node];
+	}
+
+	/**
+	 * @param body the index of a body
+	 * @param node the index of a node of its path
+	 * @return the y coordinate of the node
+	 */
+	public float getPathY(int body, int node) {
+		return this.pathY[this.pathStart[body] + node];
+	}
+}
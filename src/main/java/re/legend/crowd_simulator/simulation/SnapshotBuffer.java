@@ -0,0 +1,67 @@
+package re.legend.crowd_simulator.simulation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple buffer of snapshots between the environment and one observer thread
+ *
+ * The environment writes in its own snapshot, then publishes it by exchanging
+ * it with the middle one. The observer takes the middle snapshot, in exchange
+ * for the one it was reading, when a newer one has been published. Both sides
+ * own their snapshot until they exchange it with a single atomic operation, so
+ * neither ever waits for the other, no snapshot is copied, and the observer
+ * never sees a snapshot being written. Snapshots the observer had no time to
+ * take are simply overwritten.
+ */
+public class SnapshotBuffer {
+
+	// Bit of the middle index telling that it holds a snapshot not taken yet
+	private static final int FRESH = 4;
+
+	// Mask of the index in the middle value
+	private static final int INDEX = 3;
+
+	// The three snapshots
+	private final Snapshot[] snapshots = { new Snapshot(), new Snapshot(), new Snapshot() };
+
+	// Index of the snapshot owned by the environment
+	private int writeIndex = 0;
+
+	// Index of the snapshot owned by the observer
+	private int readIndex = 1;
+
+	// True once the observer has taken a snapshot
+	private boolean taken;
+
+	// Index of the middle snapshot, with the FRESH bit
+	private final AtomicInteger middle = new AtomicInteger(2);
+
+	/**
+	 * @return the snapshot the environment writes in, until it publishes it
+	 */
+	public Snapshot getWriteSnapshot() {
+		return this.snapshots[this.writeIndex];
+	}
+
+	/**
+	 * Publishes the snapshot written by the environment, which gets another one to
+	 * write in
+	 */
+	public void publish() {
+		this.writeIndex = this.middle.getAndSet(this.writeIndex | FRESH) & INDEX;
+	}
+
+	/**
+	 * Called by the observer thread only
+	 *
+	 * @return the latest published snapshot, owned by the observer until its next
+	 *         call, null if none has been published yet
+	 */
+	public Snapshot getLatest() {
+		if ((this.middle.get() & FRESH) != 0) {
+			this.readIndex = this.middle.getAndSet(this.readIndex) & INDEX;
+			this.taken = true;
+		}
+		return this.taken ? this.snapshots[this.readIndex] : null;
+	}
+}
@@ -0,0 +1,248 @@
+package re.legend.crowd_simulator.simulation;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.frustum.AdultFrustum;
+import re.legend.crowd_simulator.frustum.EntityFrustum;
+import re.legend.crowd_simulator.influence.MotionSlot;
+import re.legend.crowd_simulator.map.BodyStore;
+import re.legend.crowd_simulator.map.Map;
+
+/**
+ * Runs the environment passes of a simulation step over the bodies of a map,
+ * in parallel on a ForkJoin pool
+ *
+ * The bodies are partitioned by slot of the {@link BodyStore}. Every pass only
+ * reads shared state that is not modified during the pass (the body grid, the
+ * walls, the current positions) and only writes the entries of its own slot,
+ * so that the result of a step does not depend on the number of threads nor on
+ * the scheduling: the positions are read from the current buffer of the store
+ * and written to the next one, which becomes current once every slot is done.
+ *
+ * The caller is responsible for not adding or removing bodies during a pass.
+ */
+public class StepEngine {
+
+	// Number of slots under which a task is not split anymore
+	public static final int SLOTS_PER_TASK = 128;
+
+	// Frustum of the bodies which have none
+	private static final EntityFrustum DEFAULT_FRUSTUM = new AdultFrustum(10);
+
+	// Map whose bodies are simulated
+	private final Map map;
+
+	// Pool running the passes
+	private final ForkJoinPool pool;
+
+	// Resolves the conflicts between the collected motions
+	private final ConflictSolver solver = new ConflictSolver();
+
+	// True if the steering vectors are recorded with the motions, for the debug
+	// view
+	private boolean recordSteering;
+
+	// Actions of the passes, created once so that running a pass allocates
+	// nothing
+	private final SlotAction perceiveAction = this::perceive;
+	private final SlotAction collectAction = this::collect;
+	private final SlotAction computeCorrectionAction = this.solver::computeCorrection;
+	private final SlotAction applyCorrectionAction = this::applyCorrection;
+	private final SlotAction integrateAction = this::integrate;
+
+	/**
+	 * Constructor
+	 *
+	 * @param map         the map whose bodies are simulated
+	 * @param parallelism the number of threads of the pool
+	 */
+	public StepEngine(Map map, int parallelism) {
+		this.map = map;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Constructor using a thread per available processor
+	 *
+	 * @param map the map whose bodies are simulated
+	 */
+	public StepEngine(Map map) {
+		this(map, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @return the number of threads used by the passes
+	 */
+	public int getParallelism() {
+		return this.pool.getParallelism();
+	}
+
+	/**
+	 * Computes the bodies perceived by each body, the walls being avoided through
+	 * the wall distance field of the map
+	 */
+	public void computePerceptions() {
+		BodyStore store = this.map.getBodyStore();
+		store.pullVelocities();
+		// Indexes the bodies so that each body only looks at the cells covered by its
+		// frustum
+		this.map.updateBodyGrid();
+		forEachSlot(store.size(), this.perceiveAction);
+	}
+
+	/**
+	 * Collects the motion submitted by each body into the store, emptying the
+	 * body's motion slot: the motions submitted afterwards go to the next step
+	 */
+	public void collectInfluences() {
+		BodyStore store = this.map.getBodyStore();
+		forEachSlot(store.size(), this.collectAction);
+	}
+
+	/**
+	 * Resolves the conflicts between the collected motions, then moves each body
+	 * of its corrected motion
+	 */
+	public void applyInfluences() {
+		BodyStore store = this.map.getBodyStore();
+		resolveConflicts(store);
+		forEachSlot(store.size(), this.integrateAction);
+		store.swapPositions();
+		// The bodies are moved from this thread only, the workers never write to them
+		store.pushPositions();
+	}
+
+	/**
+	 * Corrects the collected motions so that the bodies neither overlap nor enter
+	 * the walls, with a bounded number of parallel Jacobi iterations at each
+	 * sub-step of the step
+	 *
+	 * @param store the bodies, their motions collected
+	 */
+	private void resolveConflicts(BodyStore store) {
+		int count = store.size();
+		int subSteps = this.solver.begin(store, this.map.getWallGrid());
+		for (int subStep = 0; subStep < subSteps; subStep++) {
+			this.solver.predict(store, subStep);
+			for (int i = 0; i < ConflictSolver.ITERATIONS; i++) {
+				if (i > 0) {
+					this.solver.hash(count);
+				}
+				forEachSlot(count, this.computeCorrectionAction);
+				forEachSlot(count, this.applyCorrectionAction);
+			}
+		}
+		this.solver.writeMotions(store);
+	}
+
+	/**
+	 * @param recordSteering true to record the steering vectors of the bodies in
+	 *                       the store when their motions are collected
+	 */
+	public void setRecordSteering(boolean recordSteering) {
+		this.recordSteering = recordSteering;
+	}
+
+	/**
+	 * @return the longest distance covered by a body at the last applied step
+	 */
+	public float getLongestMotion() {
+		return this.solver.getLongestMotion();
+	}
+
+	/**
+	 * Stops the threads of the pool
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	private void perceive(int slot) {
+		BodyStore store = this.map.getBodyStore();
+		AgentBody body = store.getBody(slot);
+		EntityFrustum frustum = body.getFrustum();
+		if (frustum == null) {
+			frustum = DEFAULT_FRUSTUM;
+		}
+		float frustumSideLength = frustum.getSideLength() * Map.CELL_SIZE;
+		float x = store.getX()[slot];
+		float y = store.getY()[slot];
+
+		// Computes the perceived bodies, in the body's own list
+		List<AgentBody> bodies = body.getPerceivedBodies();
+		synchronized (bodies) {
+			bodies.clear();
+			this.map.getBodyGrid().query(x, y, frustumSideLength, body, bodies);
+		}
+	}
+
+	private void collect(int slot) {
+		BodyStore store = this.map.getBodyStore();
+		long motion = store.getBody(slot).getMotionSlot().take();
+		store.setMotion(slot, MotionSlot.getX(motion), MotionSlot.getY(motion));
+		// The agent wrote its steering vectors before submitting the motion taken
+		if (this.recordSteering && motion != MotionSlot.EMPTY) {
+			store.recordSteering(slot);
+		}
+	}
+
+	private void applyCorrection(int slot) {
+		this.solver.applyCorrection(this.map.getBodyStore(), slot);
+	}
+
+	private void integrate(int slot) {
+		this.map.getBodyStore().integrate(slot);
+	}
+
+	private void forEachSlot(int size, SlotAction action) {
+		if (size <= SLOTS_PER_TASK) {
+			for (int slot = 0; slot < size; slot++) {
+				action.run(slot);
+			}
+		} else {
+			this.pool.invoke(new SlotTask(action, 0, size));
+		}
+	}
+
+	/**
+	 * Work done on a slot
+	 */
+	@FunctionalInterface
+	private interface SlotAction {
+		void run(int slot);
+	}
+
+	/**
+	 * Runs an action on a range of slots, splitting the range in halves until it
+	 * is small enough
+	 */
+	private static class SlotTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final SlotAction action;
+		private final int from;
+		private final int to;
+
+		SlotTask(SlotAction action, int from, int to) {
+			this.action = action;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= SLOTS_PER_TASK) {
+				for (int slot = this.from; slot < this.to; slot++) {
+					this.action.run(slot);
+				}
+			} else {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new SlotTask(this.action, this.from, middle), new SlotTask(this.action, middle, this.to));
+			}
+		}
+	}
+}
@@ -1,18 +1,49 @@
 package re.legend.crowd_simulator;
 
+import java.util.Arrays;
+
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 
 import io.sarl.bootstrap.SRE;
 import re.legend.crowd_simulator.agents.environment.Environment;
+import re.legend.crowd_simulator.simulation.HeadlessConfiguration;
+import re.legend.crowd_simulator.simulation.SimulationClock;
 
 public class Launcher {
 	public static void main(String[] args) throws Exception {
+	// Headless mode: --headless [--agents n] [--frequency ms] [--bomb-time s] [--time-step s]
+	// [--threads n] [--alarm-speed px] [--map path] [--time-limit s] [--report path]
+	if (Arrays.asList(args).contains("--headless")) {
+		HeadlessConfiguration headless = HeadlessConfiguration.parse(args);
+		SRE.getBootstrap().startAgent(Environment.class, headless);
+		headless.awaitFinish();
+		headless.writeReport();
+		System.exit(0);
+	}
+
 	LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
 	config.samples = 16;
 	config.title = "MallEscape-AI";
 	config.width = 1366;
 	config.height = 768;
-	
-	SRE.getBootstrap().startAgent(Environment.class, config);
+
+	// Optional time scale: --time-scale x
+	float timeScale = 1f;
+	int timeScaleIndex = Arrays.asList(args).indexOf("--time-scale");
+	if (timeScaleIndex >= 0 && timeScaleIndex + 1 < args.length) {
+		timeScale = Float.parseFloat(args[timeScaleIndex + 1]);
+	}
+
+	// Optional number of simulation steps per second: --step-rate hz
+	float stepRate = 1f / SimulationClock.DEFAULT_STEP_DURATION;
+	int stepRateIndex = Arrays.asList(args).indexOf("--step-rate");
+	if (stepRateIndex >= 0 && stepRateIndex + 1 < args.length) {
+		stepRate = Float.parseFloat(args[stepRateIndex + 1]);
+		if (stepRate <= 0) {
+			throw new IllegalArgumentException("The step rate must be positive");
+		}
+	}
+
+	SRE.getBootstrap().startAgent(Environment.class, config, timeScale, stepRate);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package re.legend.crowd_simulator.influence;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests of the latch on which the environment waits for the answers of the
+ * agents
+ */
+public class InfluenceLatchTest {
+
+	@Test
+	public void awaitReturnsOnceEveryBodyAnswered() throws InterruptedException {
+		InfluenceLatch latch = new InfluenceLatch();
+		List<MotionSlot> slots = slots(1000);
+		int step = latch.begin(slots.size());
+
+		List<Thread> agents = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int first = t;
+			Thread agent = new Thread(() -> {
+				for (int i = first; i < slots.size(); i += 4) {
+					slots.get(i).add(1, 0);
+					latch.answer(slots.get(i), step);
+				}
+			});
+			agents.add(agent);
+			agent.start();
+		}
+		assertTrue(latch.await(10000));
+		for (Thread agent : agents) {
+			agent.join();
+		}
+	}
+
+	@Test
+	public void awaitTimesOutWhenABodyDoesNotAnswer() throws InterruptedException {
+		InfluenceLatch latch = new InfluenceLatch();
+		List<MotionSlot> slots = slots(3);
+		int step = latch.begin(slots.size());
+		latch.answer(slots.get(0), step);
+		latch.answer(slots.get(1), step);
+		long start = System.nanoTime();
+		assertFalse(latch.await(50));
+		assertTrue(System.nanoTime() - start >= 40_000_000L);
+	}
+
+	@Test
+	public void aBodyIsCountedOncePerStep() throws InterruptedException {
+		InfluenceLatch latch = new InfluenceLatch();
+		List<MotionSlot> slots = slots(2);
+		int step = latch.begin(slots.size());
+		// Several answers from the same body are counted once
+		latch.answer(slots.get(0), step);
+		latch.answer(slots.get(0), step);
+		assertFalse(latch.await(10));
+		latch.answer(slots.get(1), step);
+		assertTrue(latch.await(10));
+
+		// The answers of the previous step don't count for the next one
+		step = latch.begin(slots.size());
+		assertFalse(latch.await(10));
+		latch.answer(slots.get(0), step);
+		latch.answer(slots.get(1), step);
+		assertTrue(latch.await(10));
+	}
+
+	@Test
+	public void aLateAnswerDoesNotCountForTheNextStep() throws InterruptedException {
+		InfluenceLatch latch = new InfluenceLatch();
+		List<MotionSlot> slots = slots(2);
+		int first = latch.begin(slots.size());
+		latch.answer(slots.get(0), first);
+		assertFalse(latch.await(10));
+
+		// The second body answers the first perception once the next step began
+		int second = latch.begin(slots.size());
+		latch.answer(slots.get(1), first);
+		latch.answer(slots.get(0), second);
+		assertFalse(latch.await(10));
+		// Its late answer did not mark the next step as answered either
+		latch.answer(slots.get(1), second);
+		assertTrue(latch.await(10));
+	}
+
+	@Test
+	public void answersRacingTheNextStepAreCountedForTheirOwnStep() throws Exception {
+		InfluenceLatch latch = new InfluenceLatch();
+		List<MotionSlot> slots = slots(64);
+		AtomicInteger current = new AtomicInteger(latch.begin(slots.size()));
+		AtomicBoolean running = new AtomicBoolean(true);
+
+		// Agents answering over and over the step they last saw, often a stale one
+		List<Thread> agents = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int first = t;
+			Thread agent = new Thread(() -> {
+				while (running.get()) {
+					int step = current.get();
+					for (int i = first; i < slots.size(); i += 4) {
+						latch.answer(slots.get(i), step);
+					}
+				}
+			});
+			agents.add(agent);
+			agent.start();
+		}
+		try {
+			for (int i = 0; i < 2000; i++) {
+				// Every answer counted belongs to the step: the step is only
+				// complete once each body answered it
+				int step = latch.begin(slots.size());
+				current.set(step);
+				assertTrue(latch.await(10000));
+				for (MotionSlot slot : slots) {
+					assertFalse("Every body answered the step", slot.markAnswered(step));
+				}
+			}
+		} finally {
+			running.set(false);
+			for (Thread agent : agents) {
+				agent.join();
+			}
+		}
+	}
+
+	private static List<MotionSlot> slots(int count) {
+		List<MotionSlot> slots = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			slots.add(new MotionSlot());
+		}
+		return slots;
+	}
+}
@@ -0,0 +1,86 @@
+package re.legend.crowd_simulator.influence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Checks that the motions submitted to a slot add up, and that none is lost
+ * nor taken twice when they are submitted while the slot is being taken
+ */
+public class MotionSlotTest {
+
+	@Test
+	public void motionsAddUpUntilTaken() {
+		MotionSlot slot = new MotionSlot();
+		assertFalse(slot.isPending());
+		slot.add(1.5f, -2);
+		slot.add(0.25f, 4);
+		assertTrue(slot.isPending());
+
+		long motion = slot.take();
+		assertEquals(1.75f, MotionSlot.getX(motion), 0);
+		assertEquals(2, MotionSlot.getY(motion), 0);
+		assertFalse(slot.isPending());
+		assertEquals(MotionSlot.EMPTY, slot.take());
+	}
+
+	@Test
+	public void anEmptySlotGivesNoMotion() {
+		assertEquals(0, MotionSlot.getX(MotionSlot.EMPTY), 0);
+		assertEquals(0, MotionSlot.getY(MotionSlot.EMPTY), 0);
+	}
+
+	@Test
+	public void aNullMotionIsPending() {
+		MotionSlot slot = new MotionSlot();
+		slot.add(0, 0);
+		assertTrue(slot.isPending());
+		long motion = slot.take();
+		assertTrue(motion != MotionSlot.EMPTY);
+		assertEquals(0, MotionSlot.getX(motion), 0);
+	}
+
+	@Test
+	public void noMotionIsLostWhileTaking() throws InterruptedException {
+		MotionSlot slot = new MotionSlot();
+		int threads = 4;
+		int submissions = 100000;
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				// Integral motions keep the sums exact
+				for (int i = 0; i < submissions; i++) {
+					slot.add(1, 2);
+				}
+				done.countDown();
+			}).start();
+		}
+
+		start.countDown();
+		double takenX = 0;
+		double takenY = 0;
+		while (done.getCount() > 0) {
+			long motion = slot.take();
+			takenX += MotionSlot.getX(motion);
+			takenY += MotionSlot.getY(motion);
+		}
+		done.await();
+		long motion = slot.take();
+		takenX += MotionSlot.getX(motion);
+		takenY += MotionSlot.getY(motion);
+
+		assertEquals((double) threads * submissions, takenX, 0);
+		assertEquals(2.0 * threads * submissions, takenY, 0);
+	}
+}
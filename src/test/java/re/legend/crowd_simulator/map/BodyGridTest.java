@@ -0,0 +1,108 @@
+package re.legend.crowd_simulator.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import re.legend.crowd_simulator.entities.bodies.AdultBody;
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+
+/**
+ * Checks the queries of the body grid against a scan of every body
+ */
+public class BodyGridTest {
+
+	private BodyStore store;
+
+	private BodyGrid grid;
+
+	@Before
+	public void setUp() {
+		Random random = new Random(11);
+		this.store = new BodyStore();
+		for (int i = 0; i < 1000; i++) {
+			// A few bodies are out of the map, in the border cells
+			float x = random.nextFloat() * (Map.MAP_SIZE + 40) - 20;
+			float y = random.nextFloat() * (Map.MAP_SIZE + 40) - 20;
+			this.store.add(new AdultBody(x, y, 0, null));
+		}
+		this.grid = new BodyGrid(Map.CELL_SIZE, Map.MAP_SIZE);
+		this.grid.rebuild(this.store);
+	}
+
+	@Test
+	public void findsTheBodiesInASquare() {
+		Random random = new Random(5);
+		List<AgentBody> result = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			float x = random.nextFloat() * Map.MAP_SIZE;
+			float y = random.nextFloat() * Map.MAP_SIZE;
+			float halfLength = random.nextFloat() * 60;
+			AgentBody exclude = this.store.getBody(random.nextInt(this.store.size()));
+			result.clear();
+			this.grid.query(x, y, halfLength, exclude, result);
+
+			Set<AgentBody> expected = new HashSet<>();
+			for (int slot = 0; slot < this.store.size(); slot++) {
+				AgentBody body = this.store.getBody(slot);
+				if (body != exclude && Math.abs(body.getPosition().x - x) <= halfLength
+						&& Math.abs(body.getPosition().y - y) <= halfLength) {
+					expected.add(body);
+				}
+			}
+			assertEquals(expected.size(), result.size());
+			assertEquals(expected, new HashSet<>(result));
+			assertFalse(result.contains(exclude));
+		}
+	}
+
+	@Test
+	public void findsTheBodiesInARing() {
+		Random random = new Random(9);
+		List<AgentBody> result = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			float x = random.nextFloat() * Map.MAP_SIZE;
+			float y = random.nextFloat() * Map.MAP_SIZE;
+			float inner = random.nextFloat() * 400 - 50;
+			float outer = inner + random.nextFloat() * 80;
+			result.clear();
+			this.grid.queryRing(x, y, inner, outer, result);
+
+			Set<AgentBody> expected = new HashSet<>();
+			for (int slot = 0; slot < this.store.size(); slot++) {
+				AgentBody body = this.store.getBody(slot);
+				float distance = body.getPosition().dst(x, y);
+				if ((inner < 0 || distance > inner) && distance <= outer) {
+					expected.add(body);
+				}
+			}
+			assertEquals(expected.size(), result.size());
+			assertEquals(expected, new HashSet<>(result));
+		}
+	}
+
+	@Test
+	public void followsTheMovesOfTheBodies() {
+		AgentBody body = this.store.getBody(0);
+		this.store.setPosition(0, 300, 300);
+		this.grid.rebuild(this.store);
+		List<AgentBody> result = new ArrayList<>();
+		this.grid.query(300, 300, 1, null, result);
+		assertTrue(result.contains(body));
+		result.clear();
+
+		this.store.setPosition(0, 100, 100);
+		this.grid.rebuild(this.store);
+		this.grid.query(300, 300, 1, null, result);
+		assertFalse(result.contains(body));
+	}
+}
@@ -0,0 +1,130 @@
+package re.legend.crowd_simulator.pathfinding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.math.Vector2;
+
+import re.legend.crowd_simulator.entities.gameobjects.Wall;
+import re.legend.crowd_simulator.map.Map;
+import re.legend.crowd_simulator.map.WallGrid;
+
+/**
+ * Checks the evacuation routes of a map split by a wall open at its bottom,
+ * with a sealed room on its right
+ */
+public class FlowFieldTest {
+
+	// Column of the splitting wall, and row of its opening
+	private static final int WALL_COLUMN = 17;
+	private static final int OPENING_ROW = 30;
+
+	// Corner tile of the sealed room, walled on a 3x3 square around its only tile
+	private static final int ROOM_COLUMN = 25;
+	private static final int ROOM_ROW = 10;
+
+	private WallGrid walls;
+
+	// Exits on each side of the splitting wall
+	private Vector2 leftExit;
+	private Vector2 rightExit;
+
+	@Before
+	public void setUp() {
+		List<Wall> walls = new ArrayList<>();
+		for (int row = 0; row < Map.MAP_SIZE / Wall.SIZE; row++) {
+			if (row != OPENING_ROW) {
+				walls.add(new Wall(WALL_COLUMN * Wall.SIZE, row * Wall.SIZE));
+			}
+		}
+		for (int row = ROOM_ROW; row < ROOM_ROW + 3; row++) {
+			for (int column = ROOM_COLUMN; column < ROOM_COLUMN + 3; column++) {
+				if (row != ROOM_ROW + 1 || column != ROOM_COLUMN + 1) {
+					walls.add(new Wall(column * Wall.SIZE, row * Wall.SIZE));
+				}
+			}
+		}
+		this.walls = new WallGrid(walls, Map.MAP_SIZE);
+		this.leftExit = new Vector2(8, 8);
+		this.rightExit = new Vector2(Map.MAP_SIZE - 8, Map.MAP_SIZE - 8);
+	}
+
+	@Test
+	public void leadsAroundTheWallToTheExit() {
+		FlowField field = new FlowField(this.walls, Arrays.asList(this.leftExit));
+		Vector2 position = new Vector2(WALL_COLUMN * Wall.SIZE + 40, 40);
+		assertSame(this.leftExit, field.getExit(position.x, position.y));
+
+		float walked = 0;
+		float distance = field.getDistance(position.x, position.y);
+		// Straight through the wall, the exit is much closer than by the opening
+		assertTrue(distance > 2 * OPENING_ROW * Wall.SIZE);
+		for (int i = 0; i < 100 && !position.equals(this.leftExit); i++) {
+			Vector2 target = field.getTarget(position.x, position.y);
+			assertNotNull(target);
+			assertFalse("The route goes through a wall", crossesWall(position, target));
+			walked += position.dst(target);
+			position.set(target);
+			// The field only leads nearer to the exit
+			float next = field.getDistance(position.x, position.y);
+			assertTrue(next < distance);
+			distance = next;
+		}
+		assertEquals(this.leftExit, position);
+		// The route is about as long as the distance of the field
+		assertTrue(walked < field.getDistance(WALL_COLUMN * Wall.SIZE + 40, 40) + Wall.SIZE);
+	}
+
+	@Test
+	public void leadsToTheNearestExit() {
+		FlowField field = new FlowField(this.walls, Arrays.asList(this.leftExit, this.rightExit));
+		assertSame(this.rightExit, field.getExit(WALL_COLUMN * Wall.SIZE + 40, 40));
+		assertSame(this.leftExit, field.getExit(40, 40));
+	}
+
+	@Test
+	public void leavesNoWayOutOfASealedRoom() {
+		FlowField field = new FlowField(this.walls, Arrays.asList(this.leftExit));
+		float x = (ROOM_COLUMN + 1.5f) * Wall.SIZE;
+		float y = (ROOM_ROW + 1.5f) * Wall.SIZE;
+		assertNull(field.getTarget(x, y));
+		assertNull(field.getExit(x, y));
+		assertEquals(Float.POSITIVE_INFINITY, field.getDistance(x, y), 0);
+	}
+
+	@Test
+	public void leadsABodyPushedOntoAWallOut() {
+		FlowField field = new FlowField(this.walls, Arrays.asList(this.leftExit));
+		float x = (WALL_COLUMN + 0.5f) * Wall.SIZE;
+		float y = 100;
+		Vector2 target = field.getTarget(x, y);
+		assertNotNull(target);
+		assertFalse(this.walls.isWallAt(target.x, target.y));
+		assertSame(this.leftExit, field.getExit(x, y));
+	}
+
+	/**
+	 * @return true if a wall lies on the segment between the two points
+	 */
+	private boolean crossesWall(Vector2 from, Vector2 to) {
+		int samples = (int) Math.ceil(from.dst(to)) + 1;
+		for (int i = 0; i <= samples; i++) {
+			float t = i / (float) samples;
+			if (this.walls.isWallAt(from.x + (to.x - from.x) * t, from.y + (to.y - from.y) * t)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
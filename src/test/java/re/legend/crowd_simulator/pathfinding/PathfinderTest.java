@@ -0,0 +1,204 @@
+package re.legend.crowd_simulator.pathfinding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+
+/**
+ * Checks the paths planned over a grid of waypoints with a wall in its middle,
+ * searched or read from the routing table, against the number of hops given by
+ * a breadth-first search
+ */
+public class PathfinderTest {
+
+	// Number of waypoints on each side of the grid
+	private static final int SIDE = 12;
+
+	// Distance between two neighbouring waypoints
+	private static final float SPACING = 20;
+
+	// Column of the wall, open on its last row only
+	private static final int WALL_COLUMN = 6;
+
+	private MutableGraph<AStarNode> graph;
+
+	// Waypoint of each cell of the grid, null for the wall
+	private AStarNode[][] nodes;
+
+	// Waypoint out of the grid, linked to nothing
+	private AStarNode isolated;
+
+	@Before
+	public void setUp() {
+		this.graph = GraphBuilder.undirected().build();
+		this.nodes = new AStarNode[SIDE][SIDE];
+		for (int row = 0; row < SIDE; row++) {
+			for (int column = 0; column < SIDE; column++) {
+				if (column != WALL_COLUMN || row == SIDE - 1) {
+					this.nodes[row][column] = new AStarNode(column * SPACING, row * SPACING);
+					this.graph.addNode(this.nodes[row][column]);
+				}
+			}
+		}
+		for (int row = 0; row < SIDE; row++) {
+			for (int column = 0; column < SIDE; column++) {
+				if (this.nodes[row][column] == null) {
+					continue;
+				}
+				if (column + 1 < SIDE && this.nodes[row][column + 1] != null) {
+					this.graph.putEdge(this.nodes[row][column], this.nodes[row][column + 1]);
+				}
+				if (row + 1 < SIDE && this.nodes[row + 1][column] != null) {
+					this.graph.putEdge(this.nodes[row][column], this.nodes[row + 1][column]);
+				}
+			}
+		}
+		this.isolated = new AStarNode(1000, 1000);
+		this.graph.addNode(this.isolated);
+	}
+
+	@Test
+	public void searchFindsTheShortestPath() {
+		Pathfinder pathfinder = new Pathfinder(this.graph);
+		AStarNode start = this.nodes[0][0];
+		AStarNode goal = this.nodes[0][SIDE - 1];
+		Path path = pathfinder.searchPath(start, goal);
+		assertNotNull(path);
+		assertEquals(start, path.getNode(0));
+		assertEquals(goal, path.getLastNode());
+		assertConnected(path);
+		// Down to the opening of the wall, across, and up again
+		assertEquals(hops(start, goal) + 1, path.length());
+		assertEquals(2 * (SIDE - 1) + SIDE - 1, hops(start, goal));
+	}
+
+	@Test
+	public void searchFindsNoPathToAnUnreachableNode() {
+		Pathfinder pathfinder = new Pathfinder(this.graph);
+		assertNull(pathfinder.searchPath(this.nodes[0][0], this.isolated));
+	}
+
+	@Test
+	public void concurrentSearchesFindTheShortestPaths() throws Exception {
+		Pathfinder pathfinder = new Pathfinder(this.graph);
+		List<AStarNode> nodes = connectedNodes();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> searches = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				long seed = t;
+				searches.add(executor.submit(() -> {
+					Random random = new Random(seed);
+					for (int i = 0; i < 500; i++) {
+						AStarNode start = nodes.get(random.nextInt(nodes.size()));
+						AStarNode goal = nodes.get(random.nextInt(nodes.size()));
+						Path path = pathfinder.searchPath(start, goal);
+						assertConnected(path);
+						assertEquals(hops(start, goal) + 1, path.length());
+					}
+					return null;
+				}));
+			}
+			for (Future<?> search : searches) {
+				search.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void routingTableGivesTheShortestPaths() {
+		Pathfinder pathfinder = new Pathfinder(this.graph);
+		assertTrue(pathfinder.hasRoutingTable());
+		List<AStarNode> nodes = connectedNodes();
+		for (AStarNode start : nodes) {
+			for (AStarNode goal : nodes) {
+				Path path = pathfinder.findPath(start, goal);
+				assertEquals(start, path.getNode(0));
+				assertEquals(goal, path.getLastNode());
+				assertConnected(path);
+				assertEquals(pathfinder.searchPath(start, goal).length(), path.length());
+			}
+		}
+	}
+
+	@Test
+	public void routingTableGivesNoPathToAnUnreachableNode() {
+		Pathfinder pathfinder = new Pathfinder(this.graph);
+		assertNull(pathfinder.findPath(this.nodes[0][0], this.isolated));
+		assertEquals(1, pathfinder.findPath(this.isolated, this.isolated).length());
+	}
+
+	@Test
+	public void findsTheNearestNodes() {
+		Pathfinder pathfinder = new Pathfinder(this.graph);
+		assertEquals(this.nodes[2][3], pathfinder.findNearestNode(3 * SPACING + 4, 2 * SPACING - 6));
+		assertEquals(this.nodes[0][0], pathfinder.findNearestNode(-50, -50));
+	}
+
+	/**
+	 * Checks that each node of the path is linked to the next one
+	 */
+	private void assertConnected(Path path) {
+		for (int i = 0; i + 1 < path.length(); i++) {
+			assertTrue(this.graph.adjacentNodes((AStarNode) path.getNode(i)).contains(path.getNode(i + 1)));
+		}
+	}
+
+	/**
+	 * @return the nodes of the grid
+	 */
+	private List<AStarNode> connectedNodes() {
+		List<AStarNode> nodes = new ArrayList<>();
+		for (AStarNode[] row : this.nodes) {
+			for (AStarNode node : row) {
+				if (node != null) {
+					nodes.add(node);
+				}
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * @return the smallest number of edges between the two nodes, by a
+	 *         breadth-first search, -1 if there is no way
+	 */
+	private int hops(AStarNode start, AStarNode goal) {
+		List<AStarNode> frontier = new ArrayList<>();
+		List<AStarNode> visited = new ArrayList<>();
+		frontier.add(start);
+		visited.add(start);
+		for (int hops = 0; !frontier.isEmpty(); hops++) {
+			List<AStarNode> next = new ArrayList<>();
+			for (AStarNode node : frontier) {
+				if (node == goal) {
+					return hops;
+				}
+				for (AStarNode neighbour : this.graph.adjacentNodes(node)) {
+					if (!visited.contains(neighbour)) {
+						visited.add(neighbour);
+						next.add(neighbour);
+					}
+				}
+			}
+			frontier = next;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,91 @@
+package re.legend.crowd_simulator.pathfinding;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Checks the lookups of the waypoint grid against a scan of every point
+ */
+public class WaypointGridTest {
+
+	@Test
+	public void findsTheNearestPoint() {
+		Random random = new Random(42);
+		List<Vector2> points = randomPoints(random, 500, 560);
+		WaypointGrid grid = new WaypointGrid(points, WaypointGrid.DEFAULT_CELL_SIZE);
+		for (int i = 0; i < 2000; i++) {
+			// Some of the queries are far out of the grid
+			float x = random.nextFloat() * 1000 - 200;
+			float y = random.nextFloat() * 1000 - 200;
+			int nearest = grid.findNearest(x, y);
+			assertEquals(points.get(nearestByScan(points, x, y)).dst2(x, y), points.get(nearest).dst2(x, y), 0);
+		}
+	}
+
+	@Test
+	public void findsTheNearestOfSparsePoints() {
+		// Few points spread over many cells, the rings have to grow far
+		Random random = new Random(7);
+		List<Vector2> points = randomPoints(random, 5, 2000);
+		WaypointGrid grid = new WaypointGrid(points, 10);
+		for (int i = 0; i < 500; i++) {
+			float x = random.nextFloat() * 2000;
+			float y = random.nextFloat() * 2000;
+			assertEquals(nearestByScan(points, x, y), grid.findNearest(x, y));
+		}
+	}
+
+	@Test
+	public void findsNothingWithoutPoints() {
+		WaypointGrid grid = new WaypointGrid(Collections.<Vector2>emptyList(), 10);
+		assertEquals(-1, grid.findNearest(5, 5));
+	}
+
+	@Test
+	public void findsThePointsWithinADistance() {
+		Random random = new Random(3);
+		List<Vector2> points = randomPoints(random, 500, 560);
+		WaypointGrid grid = new WaypointGrid(points, WaypointGrid.DEFAULT_CELL_SIZE);
+		for (int i = 0; i < 200; i++) {
+			float x = random.nextFloat() * 560;
+			float y = random.nextFloat() * 560;
+			float distance = random.nextFloat() * 100;
+			BitSet found = new BitSet();
+			grid.forEachWithin(x, y, distance, found::set);
+			BitSet expected = new BitSet();
+			for (int p = 0; p < points.size(); p++) {
+				if (points.get(p).dst2(x, y) < distance * distance) {
+					expected.set(p);
+				}
+			}
+			assertEquals(expected, found);
+		}
+	}
+
+	private static List<Vector2> randomPoints(Random random, int count, float size) {
+		List<Vector2> points = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			points.add(new Vector2(random.nextFloat() * size, random.nextFloat() * size));
+		}
+		return points;
+	}
+
+	private static int nearestByScan(List<Vector2> points, float x, float y) {
+		int nearest = -1;
+		for (int i = 0; i < points.size(); i++) {
+			if (nearest < 0 || points.get(i).dst2(x, y) < points.get(nearest).dst2(x, y)) {
+				nearest = i;
+			}
+		}
+		return nearest;
+	}
+}
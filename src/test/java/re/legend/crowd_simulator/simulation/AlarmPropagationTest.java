@@ -0,0 +1,98 @@
+package re.legend.crowd_simulator.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.math.Vector2;
+
+import re.legend.crowd_simulator.entities.bodies.AdultBody;
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.map.Map;
+
+/**
+ * Checks that the alarm wave reaches every body once, when the wave covers it,
+ * whether the body stands still, flees the wave or runs into it
+ */
+public class AlarmPropagationTest {
+
+	// Center of the wave
+	private static final float ORIGIN = Map.MAP_SIZE / 2f;
+
+	// Speed of the wave (in px per second)
+	private static final float SPEED = 200;
+
+	// Motion of the moving bodies at each step
+	private static final float MOTION = 3;
+
+	private Map map;
+
+	private StepEngine engine;
+
+	private final List<AgentBody> crowd = new ArrayList<>();
+
+	// Motion of each body at each step
+	private final List<Vector2> motions = new ArrayList<>();
+
+	@Before
+	public void setUp() throws Exception {
+		this.map = new Map();
+		// Bodies on a spiral around the origin: one in three stands still, one runs
+		// towards the origin and one away from it
+		for (int i = 0; i < 60; i++) {
+			float angle = (float) (i * 2 * Math.PI / 60);
+			float distance = 20 + 4 * i;
+			float cos = (float) Math.cos(angle);
+			float sin = (float) Math.sin(angle);
+			AgentBody body = this.map.createBody(AdultBody.class, null, ORIGIN + cos * distance,
+					ORIGIN + sin * distance);
+			float motion = i % 3 == 0 ? 0 : (i % 3 == 1 ? -MOTION : MOTION);
+			this.crowd.add(body);
+			this.motions.add(new Vector2(cos * motion, sin * motion));
+		}
+		this.engine = new StepEngine(this.map, 1);
+	}
+
+	@After
+	public void tearDown() {
+		this.engine.shutdown();
+	}
+
+	@Test
+	public void everyBodyIsReachedOnceWhenTheWaveCoversIt() {
+		float dt = SimulationClock.DEFAULT_STEP_DURATION;
+		AlarmPropagation propagation = new AlarmPropagation(ORIGIN, ORIGIN, 0, SPEED);
+		java.util.Map<AgentBody, Integer> reached = new HashMap<>();
+		List<AgentBody> result = new ArrayList<>();
+		float time = 0;
+		for (int step = 0; step < 1000 && !propagation.isComplete(); step++) {
+			this.engine.computePerceptions();
+			result.clear();
+			float longestMotion = this.engine.getLongestMotion();
+			propagation.propagate(time, this.map.getBodyStore(), this.map.getBodyGrid(), longestMotion, result);
+			for (AgentBody body : result) {
+				assertTrue("A body is reached once", reached.put(body, step) == null);
+				float distance = body.getPosition().dst(ORIGIN, ORIGIN);
+				assertTrue("A body is reached inside the wave", distance <= propagation.getRadius(time) + 1e-3f);
+				// It was still outside of the wave at the previous step
+				assertTrue("A body is reached as soon as the wave covers it",
+						step == 0 || distance + longestMotion > propagation.getRadius(time - dt));
+			}
+			for (int i = 0; i < this.crowd.size(); i++) {
+				this.crowd.get(i).addMotionInfluence(this.motions.get(i).x, this.motions.get(i).y);
+			}
+			this.engine.collectInfluences();
+			this.engine.applyInfluences();
+			time += dt;
+		}
+		assertTrue(propagation.isComplete());
+		assertEquals("Every body is reached", this.crowd.size(), reached.size());
+	}
+}
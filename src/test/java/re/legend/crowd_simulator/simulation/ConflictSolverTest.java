@@ -0,0 +1,111 @@
+package re.legend.crowd_simulator.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import re.legend.crowd_simulator.entities.bodies.AdultBody;
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.entities.gameobjects.Wall;
+import re.legend.crowd_simulator.map.Map;
+
+/**
+ * Checks the resolution of the conflicts between the motions of a step, as run
+ * by the {@link StepEngine}
+ */
+public class ConflictSolverTest {
+
+	// Column of tiles walled from top to bottom, at x = 192
+	private static final int WALL_COLUMN = 12;
+
+	private Map map;
+
+	private StepEngine engine;
+
+	@Before
+	public void setUp() {
+		this.map = new Map();
+		List<Wall> walls = new ArrayList<>();
+		for (int row = 0; row < Map.MAP_SIZE / Wall.SIZE; row++) {
+			walls.add(new Wall(WALL_COLUMN * Wall.SIZE, row * Wall.SIZE));
+		}
+		this.map.setWalls(walls);
+		this.engine = new StepEngine(this.map, 1);
+	}
+
+	@After
+	public void tearDown() {
+		this.engine.shutdown();
+	}
+
+	@Test
+	public void aFreeMotionIsAppliedInFull() throws Exception {
+		AgentBody body = body(50, 300);
+		// Longer than a tile, it is split in sub-steps but not shortened
+		step(body, 40, 0);
+		assertEquals(90, body.getPosition().x, 1e-3f);
+		assertEquals(300, body.getPosition().y, 1e-3f);
+	}
+
+	@Test
+	public void bodiesOnTheSameSpotAreSeparated() throws Exception {
+		AgentBody first = body(100, 100);
+		AgentBody second = body(100, 100);
+		for (int i = 0; i < 10; i++) {
+			this.engine.computePerceptions();
+			this.engine.collectInfluences();
+			this.engine.applyInfluences();
+		}
+		assertTrue(first.getPosition().dst(second.getPosition()) > ConflictSolver.CONTACT_DISTANCE * 0.9f);
+	}
+
+	@Test
+	public void bodiesMovingIntoEachOtherDoNotOverlap() throws Exception {
+		AgentBody left = body(80, 400);
+		AgentBody right = body(120, 400);
+		for (int i = 0; i < 20; i++) {
+			this.engine.computePerceptions();
+			left.addMotionInfluence(2, 0);
+			right.addMotionInfluence(-2, 0);
+			this.engine.collectInfluences();
+			this.engine.applyInfluences();
+		}
+		assertTrue(left.getPosition().x < right.getPosition().x);
+		assertTrue(left.getPosition().dst(right.getPosition()) > ConflictSolver.CONTACT_DISTANCE * 0.9f);
+	}
+
+	@Test
+	public void aBodySlidesAlongAWall() throws Exception {
+		AgentBody body = body(WALL_COLUMN * Wall.SIZE - 4, 300);
+		step(body, 6, 6);
+		assertFalse(this.map.getWallGrid().isWallAt(body.getPosition().x, body.getPosition().y));
+		// The motion along the wall is kept
+		assertEquals(306, body.getPosition().y, 1e-3f);
+	}
+
+	@Test
+	public void aLongMotionDoesNotCrossAWall() throws Exception {
+		AgentBody body = body(50, 200);
+		step(body, 150, 0);
+		assertTrue(body.getPosition().x < WALL_COLUMN * Wall.SIZE);
+		assertFalse(this.map.getWallGrid().isWallAt(body.getPosition().x, body.getPosition().y));
+	}
+
+	private AgentBody body(float x, float y) throws Exception {
+		return this.map.createBody(AdultBody.class, null, x, y);
+	}
+
+	private void step(AgentBody body, float x, float y) {
+		this.engine.computePerceptions();
+		body.addMotionInfluence(x, y);
+		this.engine.collectInfluences();
+		this.engine.applyInfluences();
+	}
+}
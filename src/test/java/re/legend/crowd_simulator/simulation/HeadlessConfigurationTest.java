@@ -0,0 +1,24 @@
+package re.legend.crowd_simulator.simulation;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Checks the parsing of the options of the headless mode
+ */
+public class HeadlessConfigurationTest {
+
+	@Test
+	public void keepsTheFractionOfTheFrequency() {
+		HeadlessConfiguration configuration = HeadlessConfiguration
+				.parse(new String[] { "--headless", "--agents", "25000", "--frequency", "1.92" });
+		assertEquals(25000, configuration.getNbAgents());
+		assertEquals(1.92f, configuration.getSpawnerFrequency(), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsANullFrequency() {
+		HeadlessConfiguration.parse(new String[] { "--frequency", "0" });
+	}
+}
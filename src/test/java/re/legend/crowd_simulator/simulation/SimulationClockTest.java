@@ -0,0 +1,33 @@
+package re.legend.crowd_simulator.simulation;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Checks the simulated time given by the clock of the simulation
+ */
+public class SimulationClockTest {
+
+	@Test
+	public void theTimeDoesNotDriftOverALongRun() {
+		SimulationClock clock = new SimulationClock(SimulationClock.DEFAULT_STEP_DURATION);
+		// Ten hours of simulated time
+		for (int i = 0; i < 720_000; i++) {
+			clock.tick();
+		}
+		assertEquals(720_000, clock.getSteps());
+		// Within the rounding of a single float, far below a step
+		assertEquals(36_000f, clock.getTime(), Math.ulp(36_000f));
+	}
+
+	@Test
+	public void theTimeIsAWholeNumberOfSteps() {
+		SimulationClock clock = new SimulationClock(0.1f);
+		for (int i = 1; i <= 1000; i++) {
+			clock.tick();
+			assertEquals((float) (i * (double) 0.1f), clock.getTime(), 0);
+		}
+		assertEquals(0.1f, clock.getDeltaTime(), 0);
+	}
+}
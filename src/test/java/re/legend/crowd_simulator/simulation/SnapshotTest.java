@@ -0,0 +1,90 @@
+package re.legend.crowd_simulator.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.math.Vector2;
+
+import re.legend.crowd_simulator.entities.bodies.AdultBody;
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.map.Map;
+import re.legend.crowd_simulator.pathfinding.Path;
+
+/**
+ * Checks that a snapshot holds the steering state of the step the bodies were
+ * moved by, and only copies it for the debug view
+ */
+public class SnapshotTest {
+
+	private Map map;
+
+	private StepEngine engine;
+
+	private SimulationClock clock;
+
+	private AgentBody body;
+
+	@Before
+	public void setUp() throws Exception {
+		this.map = new Map();
+		this.body = this.map.createBody(AdultBody.class, null, 200, 200);
+		this.engine = new StepEngine(this.map, 1);
+		this.engine.setRecordSteering(true);
+		this.clock = new SimulationClock(SimulationClock.DEFAULT_STEP_DURATION);
+	}
+
+	@After
+	public void tearDown() {
+		this.engine.shutdown();
+	}
+
+	@Test
+	public void capturesTheSteeringOfTheStep() {
+		this.body.setTarget(new Vector2(300, 200));
+		this.body.setPath(new Path(new Vector2[] { new Vector2(250, 200), new Vector2(300, 200) }));
+		this.body.getAvoidance().set(1, 2);
+		step(1, 0);
+
+		// The agent is already at the next step when the snapshot is taken
+		this.body.setTarget(new Vector2(0, 0));
+		this.body.setPath(null);
+		this.body.getAvoidance().set(7, 7);
+
+		Snapshot snapshot = new Snapshot();
+		snapshot.capture(this.map.getBodyStore(), this.clock, true);
+		assertEquals(201, snapshot.getX(0), 1e-4f);
+		assertEquals(300, snapshot.getTargetX(0), 0);
+		assertEquals(1, snapshot.getAvoidanceX(0), 0);
+		assertEquals(2, snapshot.getAvoidanceY(0), 0);
+		assertEquals(2, snapshot.getPathLength(0));
+		assertEquals(250, snapshot.getPathX(0, 0), 0);
+	}
+
+	@Test
+	public void copiesNoPathOutOfTheDebugView() {
+		this.body.setTarget(new Vector2(300, 200));
+		this.body.setPath(new Path(new Vector2[] { new Vector2(250, 200), new Vector2(300, 200) }));
+		step(1, 0);
+
+		Snapshot snapshot = new Snapshot();
+		snapshot.capture(this.map.getBodyStore(), this.clock, true);
+		assertTrue(snapshot.hasTarget(0));
+		snapshot.capture(this.map.getBodyStore(), this.clock, false);
+		assertEquals(201, snapshot.getX(0), 1e-4f);
+		assertFalse(snapshot.hasTarget(0));
+		assertEquals(0, snapshot.getPathLength(0));
+	}
+
+	private void step(float x, float y) {
+		this.engine.computePerceptions();
+		this.body.addMotionInfluence(x, y);
+		this.engine.collectInfluences();
+		this.engine.applyInfluences();
+		this.clock.tick();
+	}
+}
@@ -0,0 +1,127 @@
+package re.legend.crowd_simulator.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.math.Vector2;
+
+import re.legend.crowd_simulator.entities.bodies.AdultBody;
+import re.legend.crowd_simulator.entities.bodies.AgentBody;
+import re.legend.crowd_simulator.entities.gameobjects.Wall;
+import re.legend.crowd_simulator.map.Map;
+
+/**
+ * Checks that a simulation step allocates nothing once the crowd is set up
+ *
+ * A step is run as the environment and the agents run it: perceptions, the
+ * steering of every body and the submission of its motion, collection of the
+ * motions, then their resolution and application. The crowd is smaller than a
+ * task of the {@link StepEngine}, so every pass runs on the test thread, whose
+ * allocations are measured by the JVM. Larger crowds only add the fork/join
+ * tasks splitting the passes, one per {@link StepEngine#SLOTS_PER_TASK} bodies.
+ * The Perception events the environment sends to the agents are not part of
+ * the step measured here: a new one is sent to each body at each step.
+ */
+public class StepAllocationTest {
+
+	// Corners of the room the crowd moves in
+	private static final int ROOM_MIN = 96;
+	private static final int ROOM_MAX = 400;
+
+	// Number of bodies on each side of the crowd
+	private static final int SIDE = 10;
+
+	// Steps run before measuring, for the buffers to reach their size and the
+	// code to be compiled
+	private static final int WARMUP_STEPS = 2000;
+
+	// Steps measured
+	private static final int MEASURED_STEPS = 200;
+
+	private com.sun.management.ThreadMXBean threads;
+
+	private StepEngine engine;
+
+	private List<AgentBody> crowd;
+
+	@Before
+	public void setUp() throws Exception {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(this.threads.isThreadAllocatedMemorySupported());
+		this.threads.setThreadAllocatedMemoryEnabled(true);
+
+		Map map = new Map();
+		List<Wall> walls = new ArrayList<>();
+		for (int i = ROOM_MIN; i <= ROOM_MAX; i += Wall.SIZE) {
+			walls.add(new Wall(i, ROOM_MIN));
+			walls.add(new Wall(i, ROOM_MAX));
+			walls.add(new Wall(ROOM_MIN, i));
+			walls.add(new Wall(ROOM_MAX, i));
+		}
+		map.setWalls(walls);
+
+		// Each body crosses the room towards the opposite side, through the others
+		this.crowd = new ArrayList<>();
+		float spacing = (ROOM_MAX - ROOM_MIN - 4 * Wall.SIZE) / (float) SIDE;
+		for (int row = 0; row < SIDE; row++) {
+			for (int column = 0; column < SIDE; column++) {
+				float x = ROOM_MIN + 2 * Wall.SIZE + column * spacing;
+				float y = ROOM_MIN + 2 * Wall.SIZE + row * spacing;
+				AgentBody body = map.createBody(AdultBody.class, null, x, y);
+				body.setTarget(new Vector2(ROOM_MIN + ROOM_MAX - x, ROOM_MIN + ROOM_MAX - y));
+				this.crowd.add(body);
+			}
+		}
+		this.engine = new StepEngine(map, 1);
+	}
+
+	@After
+	public void tearDown() {
+		if (this.engine != null) {
+			this.engine.shutdown();
+		}
+	}
+
+	@Test
+	public void stepAllocatesNothing() {
+		for (int i = 0; i < WARMUP_STEPS; i++) {
+			step();
+		}
+		long threadId = Thread.currentThread().getId();
+		long before = this.threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < MEASURED_STEPS; i++) {
+			step();
+		}
+		long allocated = this.threads.getThreadAllocatedBytes(threadId) - before;
+		assertEquals("Bytes allocated by " + MEASURED_STEPS + " steps", 0, allocated);
+
+		// The crowd did move, the steps were not trivial
+		AgentBody first = this.crowd.get(0);
+		assertTrue(first.getPosition().dst(first.getTarget()) < (ROOM_MAX - ROOM_MIN) / 2);
+	}
+
+	private void step() {
+		float dt = SimulationClock.DEFAULT_STEP_DURATION;
+		this.engine.computePerceptions();
+		for (int i = 0; i < this.crowd.size(); i++) {
+			AgentBody body = this.crowd.get(i);
+			body.seek();
+			body.avoidCollisionWithBodies();
+			body.avoidCollisionWithWalls();
+			body.computesVelocity();
+			body.addMotionInfluence(body.getLinearVelocity().x * dt, body.getLinearVelocity().y * dt);
+		}
+		this.engine.collectInfluences();
+		this.engine.applyInfluences();
+	}
+}